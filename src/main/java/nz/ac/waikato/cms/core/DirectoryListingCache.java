@@ -0,0 +1,297 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * DirectoryListingCache.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package nz.ac.waikato.cms.core;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Bounded LRU cache of directory listings, e.g., for path completion.
+ * Lookups only access memory, listing directories happens in the
+ * background. Cached listings get invalidated when the modification time
+ * of the directory changes.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class DirectoryListingCache {
+
+  /** the default number of cached directories. */
+  public final static int DEFAULT_CACHE_SIZE = 100;
+
+  /** the default minimum time in msec between checking the modification time. */
+  public final static long DEFAULT_CHECK_INTERVAL = 1000;
+
+  /** the maximum number of threads for listing directories. */
+  public final static int MAX_LISTERS = 2;
+
+  /**
+   * The (immutable) listing of a directory, sorted by name.
+   */
+  public static class Listing {
+
+    /** the directory. */
+    public final File directory;
+
+    /** the modification time of the directory at the time of listing. */
+    public final long lastModified;
+
+    /** the sorted names of the children. */
+    protected final String[] m_Names;
+
+    /** whether the children are directories (same order as the names). */
+    protected final boolean[] m_Directories;
+
+    /** the last time the modification time was checked. */
+    protected volatile long m_LastChecked;
+
+    /**
+     * Initializes the listing.
+     *
+     * @param directory		the directory
+     * @param lastModified	the modification time of the directory
+     * @param children		the children
+     */
+    protected Listing(File directory, long lastModified, File[] children) {
+      int	i;
+
+      this.directory    = directory;
+      this.lastModified = lastModified;
+      if (children == null)
+	children = new File[0];
+      Arrays.sort(children, (File o1, File o2) -> o1.getName().compareTo(o2.getName()));
+      m_Names       = new String[children.length];
+      m_Directories = new boolean[children.length];
+      for (i = 0; i < children.length; i++) {
+	m_Names[i]       = children[i].getName();
+	m_Directories[i] = children[i].isDirectory();
+      }
+      m_LastChecked = System.currentTimeMillis();
+    }
+
+    /**
+     * Returns the number of children.
+     *
+     * @return		the number
+     */
+    public int size() {
+      return m_Names.length;
+    }
+
+    /**
+     * Returns the name of the child.
+     *
+     * @param index	the index of the child
+     * @return		the name
+     */
+    public String getName(int index) {
+      return m_Names[index];
+    }
+
+    /**
+     * Returns whether the child is a directory.
+     *
+     * @param index	the index of the child
+     * @return		true if a directory
+     */
+    public boolean isDirectory(int index) {
+      return m_Directories[index];
+    }
+
+    /**
+     * Returns the indices of the children whose names start with the prefix.
+     *
+     * @param prefix	the prefix
+     * @param max	the maximum number of indices to return
+     * @return		the indices
+     */
+    public List<Integer> find(String prefix, int max) {
+      List<Integer>	result;
+      int		index;
+
+      result = new ArrayList<>();
+      index  = Arrays.binarySearch(m_Names, prefix);
+      if (index < 0)
+	index = -index - 1;
+      while ((index < m_Names.length) && (result.size() < max) && m_Names[index].startsWith(prefix)) {
+	result.add(index);
+	index++;
+      }
+
+      return result;
+    }
+  }
+
+  /** the default cache. */
+  protected static DirectoryListingCache m_Default;
+
+  /** the executor for listing directories (shared across caches). */
+  protected static ExecutorService m_Executor;
+
+  /** the minimum time in msec between checking the modification time. */
+  protected final long m_CheckInterval;
+
+  /** the cached listings. */
+  protected final Map<File,Listing> m_Cache;
+
+  /** the listings in progress. */
+  protected final Map<File,CompletableFuture<Listing>> m_InProgress;
+
+  /**
+   * Initializes the cache with the default settings.
+   */
+  public DirectoryListingCache() {
+    this(DEFAULT_CACHE_SIZE, DEFAULT_CHECK_INTERVAL);
+  }
+
+  /**
+   * Initializes the cache.
+   *
+   * @param cacheSize		the maximum number of cached directories
+   * @param checkInterval	the minimum time in msec between checking the modification time
+   */
+  public DirectoryListingCache(final int cacheSize, long checkInterval) {
+    m_CheckInterval = checkInterval;
+    m_InProgress    = new HashMap<>();
+    m_Cache         = new LinkedHashMap<File,Listing>(16, 0.75f, true) {
+      private static final long serialVersionUID = -6109530637612453792L;
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<File,Listing> eldest) {
+	return size() > cacheSize;
+      }
+    };
+  }
+
+  /**
+   * Returns the default cache.
+   *
+   * @return		the cache
+   */
+  public static synchronized DirectoryListingCache getDefault() {
+    if (m_Default == null)
+      m_Default = new DirectoryListingCache();
+    return m_Default;
+  }
+
+  /**
+   * Returns the executor for listing directories.
+   *
+   * @return		the executor
+   */
+  protected static synchronized ExecutorService getExecutor() {
+    if (m_Executor == null)
+      m_Executor = ThreadUtils.newExecutor("DirectoryListingCache", MAX_LISTERS);
+    return m_Executor;
+  }
+
+  /**
+   * Returns the cached listing of the directory. Does not access the
+   * file system.
+   *
+   * @param dir		the directory
+   * @return		the listing, null if not cached
+   */
+  public Listing getCached(File dir) {
+    synchronized(m_Cache) {
+      return m_Cache.get(dir);
+    }
+  }
+
+  /**
+   * Updates the listing of the directory in the background, if not cached
+   * yet or if the modification time of the directory changed. The
+   * modification time is checked at most every check interval.
+   *
+   * @param dir		the directory
+   * @return		the future (up-to-date) listing
+   */
+  public CompletableFuture<Listing> refresh(final File dir) {
+    final CompletableFuture<Listing>	result;
+    final Listing			cached;
+
+    cached = getCached(dir);
+    if ((cached != null) && (System.currentTimeMillis() - cached.m_LastChecked < m_CheckInterval))
+      return CompletableFuture.completedFuture(cached);
+
+    synchronized(m_InProgress) {
+      if (m_InProgress.containsKey(dir))
+	return m_InProgress.get(dir);
+      result = new CompletableFuture<>();
+      m_InProgress.put(dir, result);
+    }
+
+    getExecutor().submit(() -> {
+      Listing listing;
+      try {
+	listing = list(dir, cached);
+	synchronized(m_Cache) {
+	  m_Cache.put(dir, listing);
+	}
+	result.complete(listing);
+      }
+      catch (Throwable t) {
+	result.completeExceptionally(t);
+      }
+      finally {
+	synchronized(m_InProgress) {
+	  m_InProgress.remove(dir);
+	}
+      }
+    });
+
+    return result;
+  }
+
+  /**
+   * Lists the directory (blocking), reuses the cached listing if the
+   * modification time is unchanged.
+   *
+   * @param dir		the directory
+   * @param cached	the cached listing, can be null
+   * @return		the listing
+   */
+  protected Listing list(File dir, Listing cached) {
+    long	lastModified;
+
+    lastModified = dir.lastModified();
+    if ((cached != null) && (cached.lastModified == lastModified)) {
+      cached.m_LastChecked = System.currentTimeMillis();
+      return cached;
+    }
+
+    return new Listing(dir, lastModified, dir.listFiles());
+  }
+
+  /**
+   * Removes all cached listings.
+   */
+  public void clearCache() {
+    synchronized(m_Cache) {
+      m_Cache.clear();
+    }
+  }
+}
@@ -0,0 +1,284 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * PathResolver.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package nz.ac.waikato.cms.core;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Canonicalizes paths and checks their existence in the background, as
+ * these operations can block for a long time on unreachable network
+ * mounts. Results are cached per path for a limited time. Requests that
+ * take longer than the timeout get completed with {@link PathState#UNKNOWN}.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class PathResolver {
+
+  /** the default timeout in msec. */
+  public final static int DEFAULT_TIMEOUT = 2000;
+
+  /** the default number of cached results. */
+  public final static int DEFAULT_CACHE_SIZE = 1000;
+
+  /** the default time in msec results stay valid. */
+  public final static long DEFAULT_CACHE_TIMEOUT = 10000;
+
+  /** the maximum number of threads for resolving paths. */
+  public final static int MAX_RESOLVERS = 4;
+
+  /**
+   * The state of a path.
+   */
+  public enum PathState {
+    /** the path exists. */
+    EXISTS,
+    /** the path does not exist. */
+    MISSING,
+    /** the state could not be determined (timeout, error). */
+    UNKNOWN
+  }
+
+  /**
+   * Container for the result of resolving a path.
+   */
+  public static class Resolution {
+
+    /** the path that was resolved. */
+    public final File file;
+
+    /** the canonical path, null if unknown. */
+    public final File canonical;
+
+    /** the state. */
+    public final PathState state;
+
+    /** whether the path is a directory. */
+    public final boolean directory;
+
+    /** the time of the resolution. */
+    public final long timestamp;
+
+    /**
+     * Initializes the container.
+     *
+     * @param file	the path that was resolved
+     * @param canonical	the canonical path, null if unknown
+     * @param state	the state
+     * @param directory	whether the path is a directory
+     */
+    public Resolution(File file, File canonical, PathState state, boolean directory) {
+      this.file      = file;
+      this.canonical = canonical;
+      this.state     = state;
+      this.directory = directory;
+      this.timestamp = System.currentTimeMillis();
+    }
+
+    /**
+     * Returns a short description of the resolution.
+     *
+     * @return		the description
+     */
+    @Override
+    public String toString() {
+      return file + ": " + state + (directory ? " (dir)" : "") + (canonical != null ? " -> " + canonical : "");
+    }
+  }
+
+  /** the default resolver. */
+  protected static PathResolver m_Default;
+
+  /** the executor for resolving paths (shared across resolvers). */
+  protected static ExecutorService m_Executor;
+
+  /** the scheduler for the timeouts (shared across resolvers). */
+  protected static ScheduledExecutorService m_Scheduler;
+
+  /** the timeout in msec. */
+  protected final int m_Timeout;
+
+  /** the time in msec results stay valid. */
+  protected final long m_CacheTimeout;
+
+  /** the cached results. */
+  protected final Map<File,Resolution> m_Cache;
+
+  /** the requests in progress. */
+  protected final Map<File,CompletableFuture<Resolution>> m_InProgress;
+
+  /**
+   * Initializes the resolver with the default settings.
+   */
+  public PathResolver() {
+    this(DEFAULT_TIMEOUT, DEFAULT_CACHE_SIZE, DEFAULT_CACHE_TIMEOUT);
+  }
+
+  /**
+   * Initializes the resolver.
+   *
+   * @param timeout		the timeout in msec
+   * @param cacheSize		the maximum number of cached results
+   * @param cacheTimeout	the time in msec results stay valid
+   */
+  public PathResolver(int timeout, final int cacheSize, long cacheTimeout) {
+    m_Timeout      = timeout;
+    m_CacheTimeout = cacheTimeout;
+    m_InProgress   = new HashMap<>();
+    m_Cache        = new LinkedHashMap<File,Resolution>(16, 0.75f, true) {
+      private static final long serialVersionUID = -3412587296528335271L;
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<File,Resolution> eldest) {
+	return size() > cacheSize;
+      }
+    };
+  }
+
+  /**
+   * Returns the default resolver.
+   *
+   * @return		the resolver
+   */
+  public static synchronized PathResolver getDefault() {
+    if (m_Default == null)
+      m_Default = new PathResolver();
+    return m_Default;
+  }
+
+  /**
+   * Returns the executor for resolving paths.
+   *
+   * @return		the executor
+   */
+  protected static synchronized ExecutorService getExecutor() {
+    if (m_Executor == null)
+      m_Executor = ThreadUtils.newExecutor("PathResolver", MAX_RESOLVERS);
+    return m_Executor;
+  }
+
+  /**
+   * Returns the scheduler for the timeouts.
+   *
+   * @return		the scheduler
+   */
+  protected static synchronized ScheduledExecutorService getScheduler() {
+    if (m_Scheduler == null)
+      m_Scheduler = Executors.newSingleThreadScheduledExecutor(ThreadUtils.newThreadFactory("PathResolver-timeout"));
+    return m_Scheduler;
+  }
+
+  /**
+   * Returns the cached result for the path, if still valid.
+   *
+   * @param file	the path to look up
+   * @return		the result, null if not cached
+   */
+  public Resolution getCached(File file) {
+    Resolution	result;
+
+    synchronized(m_Cache) {
+      result = m_Cache.get(file);
+      if ((result != null) && (System.currentTimeMillis() - result.timestamp >= m_CacheTimeout)) {
+	m_Cache.remove(file);
+	result = null;
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Resolves the path in the background. Cached results are returned
+   * immediately and concurrent requests for the same path share the same
+   * background task.
+   *
+   * @param file	the path to resolve
+   * @return		the future result
+   */
+  public CompletableFuture<Resolution> resolve(final File file) {
+    final CompletableFuture<Resolution>	result;
+    Resolution				cached;
+
+    cached = getCached(file);
+    if (cached != null)
+      return CompletableFuture.completedFuture(cached);
+
+    synchronized(m_InProgress) {
+      if (m_InProgress.containsKey(file))
+	return m_InProgress.get(file);
+      result = new CompletableFuture<>();
+      m_InProgress.put(file, result);
+    }
+
+    getExecutor().submit(() -> {
+      Resolution resolution = doResolve(file);
+      synchronized(m_Cache) {
+	m_Cache.put(file, resolution);
+      }
+      synchronized(m_InProgress) {
+	m_InProgress.remove(file);
+      }
+      result.complete(resolution);
+    });
+    getScheduler().schedule(
+      () -> result.complete(new Resolution(file, null, PathState.UNKNOWN, false)),
+      m_Timeout, TimeUnit.MILLISECONDS);
+
+    return result;
+  }
+
+  /**
+   * Performs the actual resolving of the path (blocking).
+   *
+   * @param file	the path to resolve
+   * @return		the result
+   */
+  protected Resolution doResolve(File file) {
+    File	canonical;
+
+    try {
+      canonical = file.getCanonicalFile();
+      if (canonical.exists())
+	return new Resolution(file, canonical, PathState.EXISTS, canonical.isDirectory());
+      else
+	return new Resolution(file, canonical, PathState.MISSING, false);
+    }
+    catch (Exception e) {
+      return new Resolution(file, null, PathState.UNKNOWN, false);
+    }
+  }
+
+  /**
+   * Removes all cached results.
+   */
+  public void clearCache() {
+    synchronized(m_Cache) {
+      m_Cache.clear();
+    }
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ThreadUtils.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package nz.ac.waikato.cms.core;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Helper methods for threads and executors used for background work.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class ThreadUtils {
+
+  /** the number of seconds idle threads are kept alive. */
+  public final static int KEEP_ALIVE = 30;
+
+  /**
+   * Returns a thread factory that creates named daemon threads, so
+   * background work never prevents the JVM from exiting.
+   *
+   * @param prefix	the prefix for the thread names
+   * @return		the factory
+   */
+  public static ThreadFactory newThreadFactory(final String prefix) {
+    final AtomicInteger	counter;
+
+    counter = new AtomicInteger();
+    return (Runnable r) -> {
+      Thread result = new Thread(r, prefix + "-" + counter.incrementAndGet());
+      result.setDaemon(true);
+      return result;
+    };
+  }
+
+  /**
+   * Returns the number of threads to use for background work, i.e.,
+   * the number of available processors capped by the specified maximum.
+   *
+   * @param max		the maximum number of threads
+   * @return		the number of threads (at least 1)
+   */
+  public static int getNumThreads(int max) {
+    return Math.max(1, Math.min(max, Runtime.getRuntime().availableProcessors()));
+  }
+
+  /**
+   * Creates an executor with a bounded number of daemon threads. Idle
+   * threads get released after {@link #KEEP_ALIVE} seconds.
+   *
+   * @param prefix	the prefix for the thread names
+   * @param numThreads	the maximum number of threads
+   * @return		the executor
+   */
+  public static ExecutorService newExecutor(String prefix, int numThreads) {
+    ThreadPoolExecutor	result;
+
+    result = new ThreadPoolExecutor(
+      numThreads, numThreads, KEEP_ALIVE, TimeUnit.SECONDS,
+      new LinkedBlockingQueue<>(), newThreadFactory(prefix));
+    result.allowCoreThreadTimeOut(true);
+
+    return result;
+  }
+}
@@ -0,0 +1,544 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * AbstractFileChooserPanel.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package nz.ac.waikato.cms.gui.core;
+
+import nz.ac.waikato.cms.core.DirectoryListingCache;
+import nz.ac.waikato.cms.core.DirectoryListingCache.Listing;
+import nz.ac.waikato.cms.core.PathResolver;
+import nz.ac.waikato.cms.core.PathResolver.PathState;
+import nz.ac.waikato.cms.core.PathResolver.Resolution;
+
+import javax.swing.JList;
+import javax.swing.JPopupMenu;
+import javax.swing.JScrollPane;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.Color;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ancestor for chooser panels that handle files/directories. Canonicalizing
+ * the path and checking its existence happens in the background (see
+ * {@link PathResolver}), as this can block for a long time on unreachable
+ * network mounts. Once the result arrives, the text field gets decorated
+ * accordingly (valid/missing/unknown).
+ * <br>
+ * With inline editing enabled, a popup offers completions for the path
+ * being typed, using the background directory listings of the
+ * {@link DirectoryListingCache}.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public abstract class AbstractFileChooserPanel
+  extends AbstractChooserPanel<File> {
+
+  private static final long serialVersionUID = 2873940613592013547L;
+
+  /** the background color for missing paths. */
+  public final static Color COLOR_MISSING = new Color(255, 220, 220);
+
+  /** the background color for paths with unknown state. */
+  public final static Color COLOR_UNKNOWN = new Color(255, 255, 210);
+
+  /** the maximum number of completions to display. */
+  public final static int MAX_COMPLETIONS = 100;
+
+  /** the number of visible rows in the completion popup. */
+  public final static int COMPLETION_ROWS = 10;
+
+  /** whether to resolve the paths in the background. */
+  protected boolean m_ResolvePaths;
+
+  /** the resolver to use. */
+  protected PathResolver m_Resolver;
+
+  /** the last resolution (null if none). */
+  protected Resolution m_Resolution;
+
+  /** the background of the text field for valid paths. */
+  protected Color m_ValidBackground;
+
+  /** whether completion is enabled (only with inline editing). */
+  protected boolean m_CompletionEnabled;
+
+  /** the directory listings for the completion. */
+  protected DirectoryListingCache m_ListingCache;
+
+  /** the popup for the completions. */
+  protected JPopupMenu m_PopupCompletion;
+
+  /** the list with the completions. */
+  protected JList<String> m_ListCompletion;
+
+  /** whether the text is currently being completed. */
+  protected boolean m_Completing;
+
+  /**
+   * Initializes the members.
+   */
+  @Override
+  protected void initialize() {
+    super.initialize();
+
+    m_ResolvePaths      = true;
+    m_Resolver          = PathResolver.getDefault();
+    m_Resolution        = null;
+    m_CompletionEnabled = true;
+    m_ListingCache      = DirectoryListingCache.getDefault();
+    m_Completing        = false;
+  }
+
+  /**
+   * Initializes the GUI elements.
+   */
+  @Override
+  protected void initGUI() {
+    super.initGUI();
+
+    m_ValidBackground = m_TextSelection.getBackground();
+
+    m_ListCompletion = new JList<>();
+    m_ListCompletion.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+    m_ListCompletion.setVisibleRowCount(COMPLETION_ROWS);
+    m_ListCompletion.setFocusable(false);
+    m_ListCompletion.addMouseListener(new MouseAdapter() {
+      @Override
+      public void mouseClicked(MouseEvent e) {
+	if (m_ListCompletion.getSelectedIndex() > -1) {
+	  e.consume();
+	  acceptCompletion();
+	}
+	else {
+	  super.mouseClicked(e);
+	}
+      }
+    });
+    m_PopupCompletion = new JPopupMenu();
+    m_PopupCompletion.setFocusable(false);
+    m_PopupCompletion.add(new JScrollPane(m_ListCompletion));
+
+    m_TextSelection.getDocument().addDocumentListener(new DocumentListener() {
+      @Override
+      public void insertUpdate(DocumentEvent e) {
+	updateCompletion();
+      }
+      @Override
+      public void removeUpdate(DocumentEvent e) {
+	updateCompletion();
+      }
+      @Override
+      public void changedUpdate(DocumentEvent e) {
+	updateCompletion();
+      }
+    });
+    m_TextSelection.addKeyListener(new KeyAdapter() {
+      @Override
+      public void keyPressed(KeyEvent e) {
+	if (m_PopupCompletion.isVisible()) {
+	  switch (e.getKeyCode()) {
+	    case KeyEvent.VK_DOWN:
+	      e.consume();
+	      moveCompletionSelection(1);
+	      break;
+	    case KeyEvent.VK_UP:
+	      e.consume();
+	      moveCompletionSelection(-1);
+	      break;
+	    case KeyEvent.VK_ENTER:
+	      if (m_ListCompletion.getSelectedIndex() > -1) {
+		e.consume();
+		acceptCompletion();
+	      }
+	      break;
+	    case KeyEvent.VK_ESCAPE:
+	      e.consume();
+	      m_PopupCompletion.setVisible(false);
+	      break;
+	  }
+	}
+	if (!e.isConsumed())
+	  super.keyPressed(e);
+      }
+    });
+    m_TextSelection.addFocusListener(new FocusAdapter() {
+      @Override
+      public void focusLost(FocusEvent e) {
+	super.focusLost(e);
+	m_PopupCompletion.setVisible(false);
+      }
+    });
+  }
+
+  /**
+   * Sets whether to resolve paths in the background and decorate the
+   * text field with the result.
+   *
+   * @param value	true if to resolve
+   */
+  public void setResolvePaths(boolean value) {
+    m_ResolvePaths = value;
+    if (m_ResolvePaths)
+      resolveCurrent();
+    else
+      applyResolution(null);
+  }
+
+  /**
+   * Returns whether paths get resolved in the background.
+   *
+   * @return		true if resolved
+   */
+  public boolean getResolvePaths() {
+    return m_ResolvePaths;
+  }
+
+  /**
+   * Sets the resolver to use.
+   *
+   * @param value	the resolver
+   */
+  public void setResolver(PathResolver value) {
+    m_Resolver = value;
+    resolveCurrent();
+  }
+
+  /**
+   * Returns the resolver in use.
+   *
+   * @return		the resolver
+   */
+  public PathResolver getResolver() {
+    return m_Resolver;
+  }
+
+  /**
+   * Sets whether to offer completions while typing a path (requires inline
+   * editing to be enabled).
+   *
+   * @param value	true if to offer completions
+   * @see		#setInlineEditingEnabled(boolean)
+   */
+  public void setCompletionEnabled(boolean value) {
+    m_CompletionEnabled = value;
+    if (!m_CompletionEnabled)
+      m_PopupCompletion.setVisible(false);
+  }
+
+  /**
+   * Returns whether completions are offered while typing a path.
+   *
+   * @return		true if completions offered
+   */
+  public boolean isCompletionEnabled() {
+    return m_CompletionEnabled;
+  }
+
+  /**
+   * Sets the cache for the directory listings used for completion.
+   *
+   * @param value	the cache
+   */
+  public void setListingCache(DirectoryListingCache value) {
+    m_ListingCache = value;
+  }
+
+  /**
+   * Returns the cache for the directory listings used for completion.
+   *
+   * @return		the cache
+   */
+  public DirectoryListingCache getListingCache() {
+    return m_ListingCache;
+  }
+
+  /**
+   * Returns whether the child is offered as completion.
+   *
+   * @param name	the name of the child
+   * @param directory	whether the child is a directory
+   * @return		true if to offer
+   */
+  protected boolean acceptCompletion(String name, boolean directory) {
+    return true;
+  }
+
+  /**
+   * Returns the index of the last separator in the path.
+   *
+   * @param path	the path to check
+   * @return		the index, -1 if none
+   */
+  protected int lastSeparator(String path) {
+    return Math.max(path.lastIndexOf('/'), path.lastIndexOf(File.separatorChar));
+  }
+
+  /**
+   * Returns the completions for the path from the cached listing of its
+   * parent directory. Does not access the file system.
+   *
+   * @param path	the (partial) path
+   * @param listing	the listing of the parent directory, can be null
+   * @return		the completions (directories end with a separator)
+   */
+  protected List<String> getCompletions(String path, Listing listing) {
+    List<String>	result;
+    String		parent;
+    String		prefix;
+    int			index;
+
+    result = new ArrayList<>();
+    if (listing == null)
+      return result;
+
+    index  = lastSeparator(path);
+    parent = path.substring(0, index + 1);
+    prefix = path.substring(index + 1);
+    for (int i: listing.find(prefix, MAX_COMPLETIONS)) {
+      if (acceptCompletion(listing.getName(i), listing.isDirectory(i)))
+	result.add(parent + listing.getName(i) + (listing.isDirectory(i) ? File.separator : ""));
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the completions for the path, using the cached listings only.
+   *
+   * @param path	the (partial) path
+   * @return		the completions (directories end with a separator)
+   */
+  public List<String> getCompletions(String path) {
+    int		index;
+
+    index = lastSeparator(path);
+    if ((index == -1) || (m_ListingCache == null))
+      return new ArrayList<>();
+
+    return getCompletions(path, m_ListingCache.getCached(new File(path.substring(0, index + 1))));
+  }
+
+  /**
+   * Updates the completion popup for the text being typed. Answers from
+   * the cached listing straight away and refreshes the listing in the
+   * background.
+   */
+  protected void updateCompletion() {
+    final String	text;
+    final File		dir;
+    final Listing	cached;
+    int			index;
+
+    if (m_Completing || !m_CompletionEnabled || !isInlineEditingEnabled() || (m_ListingCache == null) || !m_TextSelection.isFocusOwner())
+      return;
+
+    text  = m_TextSelection.getText();
+    index = lastSeparator(text);
+    if (index == -1) {
+      m_PopupCompletion.setVisible(false);
+      return;
+    }
+
+    dir    = new File(text.substring(0, index + 1));
+    cached = m_ListingCache.getCached(dir);
+    showCompletions(getCompletions(text, cached));
+    m_ListingCache.refresh(dir).thenAccept((Listing l) -> {
+      if (l != cached) {
+	SwingUtilities.invokeLater(() -> {
+	  // still the same text?
+	  if (m_TextSelection.getText().equals(text) && m_TextSelection.isFocusOwner())
+	    showCompletions(getCompletions(text, l));
+	});
+      }
+    });
+  }
+
+  /**
+   * Displays the completions.
+   *
+   * @param completions	the completions, hides the popup if empty
+   */
+  protected void showCompletions(List<String> completions) {
+    if (completions.isEmpty()) {
+      m_PopupCompletion.setVisible(false);
+      return;
+    }
+
+    m_ListCompletion.setListData(completions.toArray(new String[0]));
+    m_ListCompletion.clearSelection();
+    if (m_PopupCompletion.isVisible()) {
+      m_PopupCompletion.pack();
+    }
+    else if (m_TextSelection.isShowing()) {
+      m_PopupCompletion.setPreferredSize(null);
+      m_PopupCompletion.show(m_TextSelection, 0, m_TextSelection.getHeight());
+    }
+  }
+
+  /**
+   * Moves the selection in the completion list.
+   *
+   * @param delta	the number of rows to move
+   */
+  protected void moveCompletionSelection(int delta) {
+    int		index;
+
+    index = m_ListCompletion.getSelectedIndex() + delta;
+    if (index < 0)
+      index = 0;
+    if (index >= m_ListCompletion.getModel().getSize())
+      index = m_ListCompletion.getModel().getSize() - 1;
+    m_ListCompletion.setSelectedIndex(index);
+    m_ListCompletion.ensureIndexIsVisible(index);
+  }
+
+  /**
+   * Replaces the text with the selected completion. Completions of
+   * directories offer the completions of their children subsequently.
+   */
+  protected void acceptCompletion() {
+    String	completion;
+
+    completion = m_ListCompletion.getSelectedValue();
+    if (completion == null)
+      return;
+
+    m_PopupCompletion.setVisible(false);
+    m_Completing = true;
+    try {
+      m_TextSelection.setText(completion);
+    }
+    finally {
+      m_Completing = false;
+    }
+    updateCompletion();
+  }
+
+  /**
+   * Sets the current value and resolves it in the background.
+   *
+   * @param value	the value to use, can be null
+   * @return		true if successfully set
+   */
+  @Override
+  public boolean setCurrent(File value) {
+    boolean	result;
+
+    result = super.setCurrent(value);
+    resolveCurrent();
+
+    return result;
+  }
+
+  /**
+   * Resolves the path currently displayed in the background.
+   */
+  protected void resolveCurrent() {
+    final String	text;
+
+    if (!m_ResolvePaths || (m_Resolver == null))
+      return;
+
+    text = m_TextSelection.getText();
+    if (text.isEmpty() || text.equals(getDefaultString())) {
+      applyResolution(null);
+      return;
+    }
+
+    m_Resolver.resolve(fromString(text)).thenAccept((Resolution r) -> {
+      if (SwingUtilities.isEventDispatchThread())
+	resolved(text, r);
+      else
+	SwingUtilities.invokeLater(() -> resolved(text, r));
+    });
+  }
+
+  /**
+   * Gets called when the path got resolved.
+   *
+   * @param text	the text that got resolved
+   * @param resolution	the result
+   */
+  protected void resolved(String text, Resolution resolution) {
+    // still the same path?
+    if (m_ResolvePaths && m_TextSelection.getText().equals(text))
+      applyResolution(resolution);
+  }
+
+  /**
+   * Returns whether the resolved path is valid for this chooser.
+   *
+   * @param resolution	the result to check
+   * @return		true if valid
+   */
+  protected boolean isValid(Resolution resolution) {
+    return (resolution.state == PathState.EXISTS);
+  }
+
+  /**
+   * Decorates the text field with the result.
+   *
+   * @param resolution	the result, null to remove the decoration
+   */
+  protected void applyResolution(Resolution resolution) {
+    m_Resolution = resolution;
+    if ((resolution == null) || isValid(resolution))
+      m_TextSelection.setBackground(m_ValidBackground);
+    else if (resolution.state == PathState.UNKNOWN)
+      m_TextSelection.setBackground(COLOR_UNKNOWN);
+    else
+      m_TextSelection.setBackground(COLOR_MISSING);
+  }
+
+  /**
+   * Returns the last result of resolving the current path.
+   *
+   * @return		the result, null if not (yet) available
+   */
+  public Resolution getResolution() {
+    return m_Resolution;
+  }
+
+  /**
+   * Returns the canonical form of the current path, if already resolved.
+   * Does not access the file system.
+   *
+   * @return		the canonical path if available, otherwise the current one
+   */
+  public File getCanonicalCurrent() {
+    File	current;
+
+    current = getCurrent();
+    if ((m_Resolution != null) && (m_Resolution.canonical != null) && m_Resolution.file.equals(current))
+      return m_Resolution.canonical;
+    else
+      return current;
+  }
+}
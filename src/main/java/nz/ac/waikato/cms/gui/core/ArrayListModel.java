@@ -0,0 +1,377 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ArrayListModel.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package nz.ac.waikato.cms.gui.core;
+
+import javax.swing.AbstractListModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * List model backed by an (unsynchronized) array, as alternative to
+ * DefaultListModel. The bulk operations ({@link #addAll(Collection)},
+ * {@link #removeRange(int, int)}, {@link #setAll(Collection)},
+ * {@link #setRange(int, List)}) fire a single event for the whole interval.
+ * <br>
+ * Must be used from the event dispatch thread only.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ * @param <E> the type of elements
+ */
+public class ArrayListModel<E>
+  extends AbstractListModel<E>
+  implements JListHelper.MutableListModel<E> {
+
+  private static final long serialVersionUID = 2983619357640211875L;
+
+  /** the default initial capacity. */
+  public final static int DEFAULT_CAPACITY = 10;
+
+  /** the elements. */
+  protected Object[] m_Elements;
+
+  /** the number of elements. */
+  protected int m_Size;
+
+  /**
+   * Initializes an empty model.
+   */
+  public ArrayListModel() {
+    m_Elements = new Object[DEFAULT_CAPACITY];
+    m_Size     = 0;
+  }
+
+  /**
+   * Initializes the model with the elements.
+   *
+   * @param elements	the initial elements
+   */
+  public ArrayListModel(Collection<? extends E> elements) {
+    m_Elements = toArray(elements);
+    m_Size     = m_Elements.length;
+  }
+
+  /**
+   * Initializes the model with the elements.
+   *
+   * @param elements	the initial elements
+   */
+  public ArrayListModel(E[] elements) {
+    m_Elements = Arrays.copyOf(elements, elements.length, Object[].class);
+    m_Size     = m_Elements.length;
+  }
+
+  /**
+   * Ensures that the array can hold the specified number of elements.
+   *
+   * @param capacity	the minimum capacity
+   */
+  protected void ensureCapacity(int capacity) {
+    if (capacity <= m_Elements.length)
+      return;
+    m_Elements = Arrays.copyOf(m_Elements, Math.max(capacity, m_Elements.length + (m_Elements.length >> 1) + 1));
+  }
+
+  /**
+   * Returns the elements as object array (the array of
+   * {@link Collection#toArray()} is not necessarily an object array).
+   *
+   * @param elements	the elements to convert
+   * @return		the array
+   */
+  protected static Object[] toArray(Collection<?> elements) {
+    Object[]	result;
+
+    result = elements.toArray();
+    if (result.getClass() != Object[].class)
+      result = Arrays.copyOf(result, result.length, Object[].class);
+
+    return result;
+  }
+
+  /**
+   * Checks the index.
+   *
+   * @param index	the index to check
+   * @param size	the exclusive upper limit
+   */
+  protected void checkIndex(int index, int size) {
+    if ((index < 0) || (index >= size))
+      throw new ArrayIndexOutOfBoundsException("Index " + index + " out of range [0," + size + ")");
+  }
+
+  /**
+   * Returns the number of elements.
+   *
+   * @return		the number of elements
+   */
+  @Override
+  public int getSize() {
+    return m_Size;
+  }
+
+  /**
+   * Returns the number of elements.
+   *
+   * @return		the number of elements
+   */
+  public int size() {
+    return m_Size;
+  }
+
+  /**
+   * Returns whether the model is empty.
+   *
+   * @return		true if empty
+   */
+  public boolean isEmpty() {
+    return (m_Size == 0);
+  }
+
+  /**
+   * Returns the element at the specified index.
+   *
+   * @param index	the index
+   * @return		the element
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public E getElementAt(int index) {
+    checkIndex(index, m_Size);
+    return (E) m_Elements[index];
+  }
+
+  /**
+   * Returns the element at the specified index.
+   *
+   * @param index	the index
+   * @return		the element
+   */
+  public E get(int index) {
+    return getElementAt(index);
+  }
+
+  /**
+   * Returns the index of the element.
+   *
+   * @param element	the element to look for
+   * @return		the index, -1 if not found
+   */
+  public int indexOf(Object element) {
+    int		i;
+
+    for (i = 0; i < m_Size; i++) {
+      if ((element == null) ? (m_Elements[i] == null) : element.equals(m_Elements[i]))
+	return i;
+    }
+
+    return -1;
+  }
+
+  /**
+   * Returns whether the element is present.
+   *
+   * @param element	the element to look for
+   * @return		true if present
+   */
+  public boolean contains(Object element) {
+    return (indexOf(element) > -1);
+  }
+
+  /**
+   * Replaces the element at the specified index.
+   *
+   * @param index	the index
+   * @param element	the new element
+   * @return		the previous element
+   */
+  public E set(int index, E element) {
+    E		result;
+
+    result = getElementAt(index);
+    m_Elements[index] = element;
+    fireContentsChanged(this, index, index);
+
+    return result;
+  }
+
+  /**
+   * Appends the element.
+   *
+   * @param element	the element to add
+   */
+  public void addElement(E element) {
+    add(m_Size, element);
+  }
+
+  /**
+   * Inserts the element at the specified index.
+   *
+   * @param index	the index
+   * @param element	the element to insert
+   */
+  public void add(int index, E element) {
+    checkIndex(index, m_Size + 1);
+    ensureCapacity(m_Size + 1);
+    System.arraycopy(m_Elements, index, m_Elements, index + 1, m_Size - index);
+    m_Elements[index] = element;
+    m_Size++;
+    fireIntervalAdded(this, index, index);
+  }
+
+  /**
+   * Appends the elements, firing a single event.
+   *
+   * @param elements	the elements to add
+   */
+  public void addAll(Collection<? extends E> elements) {
+    addAll(m_Size, elements);
+  }
+
+  /**
+   * Inserts the elements at the specified index, firing a single event.
+   *
+   * @param index	the index
+   * @param elements	the elements to insert
+   */
+  public void addAll(int index, Collection<? extends E> elements) {
+    Object[]	added;
+
+    checkIndex(index, m_Size + 1);
+    added = toArray(elements);
+    if (added.length == 0)
+      return;
+    ensureCapacity(m_Size + added.length);
+    System.arraycopy(m_Elements, index, m_Elements, index + added.length, m_Size - index);
+    System.arraycopy(added, 0, m_Elements, index, added.length);
+    m_Size += added.length;
+    fireIntervalAdded(this, index, index + added.length - 1);
+  }
+
+  /**
+   * Removes the element at the specified index.
+   *
+   * @param index	the index
+   * @return		the removed element
+   */
+  public E remove(int index) {
+    E		result;
+
+    result = getElementAt(index);
+    removeRange(index, index);
+
+    return result;
+  }
+
+  /**
+   * Removes the elements in the range, firing a single event.
+   *
+   * @param fromIndex	the first index (incl)
+   * @param toIndex	the last index (incl)
+   */
+  public void removeRange(int fromIndex, int toIndex) {
+    checkIndex(fromIndex, m_Size);
+    checkIndex(toIndex, m_Size);
+    if (fromIndex > toIndex)
+      throw new IllegalArgumentException("fromIndex must be <= toIndex");
+    System.arraycopy(m_Elements, toIndex + 1, m_Elements, fromIndex, m_Size - toIndex - 1);
+    Arrays.fill(m_Elements, m_Size - (toIndex - fromIndex + 1), m_Size, null);
+    m_Size -= toIndex - fromIndex + 1;
+    fireIntervalRemoved(this, fromIndex, toIndex);
+  }
+
+  /**
+   * Removes all elements.
+   */
+  public void clear() {
+    int		size;
+
+    size = m_Size;
+    if (size == 0)
+      return;
+    m_Elements = new Object[DEFAULT_CAPACITY];
+    m_Size     = 0;
+    fireIntervalRemoved(this, 0, size - 1);
+  }
+
+  /**
+   * Replaces all elements, firing a single event (if the size stays the
+   * same) or one event for removing and one for adding.
+   *
+   * @param elements	the new elements
+   */
+  public void setAll(Collection<? extends E> elements) {
+    Object[]	replaced;
+    int		size;
+
+    replaced = toArray(elements);
+    size     = m_Size;
+    if (size == replaced.length) {
+      m_Elements = replaced;
+      if (size > 0)
+	fireContentsChanged(this, 0, size - 1);
+      return;
+    }
+    clear();
+    m_Elements = replaced;
+    m_Size     = replaced.length;
+    if (m_Size > 0)
+      fireIntervalAdded(this, 0, m_Size - 1);
+  }
+
+  /**
+   * Replaces the elements starting at the specified index and fires a
+   * single contentsChanged event for the range.
+   *
+   * @param index	the index of the first element to replace
+   * @param elements	the new elements
+   */
+  @Override
+  public void setRange(int index, List<E> elements) {
+    int		i;
+
+    if (elements.isEmpty())
+      return;
+    checkIndex(index, m_Size);
+    checkIndex(index + elements.size() - 1, m_Size);
+    for (i = 0; i < elements.size(); i++)
+      m_Elements[index + i] = elements.get(i);
+    fireContentsChanged(this, index, index + elements.size() - 1);
+  }
+
+  /**
+   * Returns the elements as list.
+   *
+   * @return		the elements
+   */
+  @SuppressWarnings("unchecked")
+  public List<E> toList() {
+    List<E>	result;
+    int		i;
+
+    result = new ArrayList<>(m_Size);
+    for (i = 0; i < m_Size; i++)
+      result.add((E) m_Elements[i]);
+
+    return result;
+  }
+}
@@ -0,0 +1,396 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ColumnWidthSampling.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package nz.ac.waikato.cms.gui.core;
+
+import javax.swing.JTable;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.Random;
+
+/**
+ * Interface for strategies that determine which cells of a column get
+ * measured when calculating the optimal column width, as used by
+ * {@link JTableHelper}.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ * @see JTableHelper#setSamplingStrategy(JTable, ColumnWidthSampling)
+ */
+public interface ColumnWidthSampling {
+
+  /**
+   * Measures evenly spaced rows, starting from the bottom (the default).
+   */
+  public static class Strided
+    implements ColumnWidthSampling {
+
+    /** the maximum number of rows to measure. */
+    protected final int m_Budget;
+
+    /**
+     * Initializes the strategy.
+     *
+     * @param budget	the maximum number of rows to measure
+     */
+    public Strided(int budget) {
+      m_Budget = budget;
+    }
+
+    /**
+     * Calculates the width of the column.
+     *
+     * @param table	the table to calculate the width for
+     * @param col	the column
+     * @param width	the width so far (e.g., of the header)
+     * @param max	the limit for the column width, -1 for unlimited
+     * @return		the width
+     */
+    @Override
+    public int calcWidth(JTable table, int col, int width, int max) {
+      int	rowCount;
+      int	dec;
+      int	row;
+
+      rowCount = table.getRowCount();
+      dec      = Math.max(1, (int) Math.ceil((double) rowCount / (double) m_Budget));
+      for (row = rowCount - 1; row >= 0; row -= dec) {
+	width = Math.max(width, JTableHelper.calcCellWidth(table, row, col));
+	if ((max > -1) && (width >= max))
+	  return max;
+      }
+
+      return width;
+    }
+  }
+
+  /**
+   * Measures all rows, stops as soon as the maximum width is reached.
+   */
+  public static class Exact
+    implements ColumnWidthSampling {
+
+    /**
+     * Calculates the width of the column.
+     *
+     * @param table	the table to calculate the width for
+     * @param col	the column
+     * @param width	the width so far (e.g., of the header)
+     * @param max	the limit for the column width, -1 for unlimited
+     * @return		the width
+     */
+    @Override
+    public int calcWidth(JTable table, int col, int width, int max) {
+      int	row;
+
+      for (row = 0; row < table.getRowCount(); row++) {
+	width = Math.max(width, JTableHelper.calcCellWidth(table, row, col));
+	if ((max > -1) && (width >= max))
+	  return max;
+      }
+
+      return width;
+    }
+  }
+
+  /**
+   * Measures the rows currently visible in the viewport first, then
+   * evenly spaced rows from the remaining ones with the remaining budget.
+   */
+  public static class VisibleFirst
+    implements ColumnWidthSampling {
+
+    /** the maximum number of rows to measure. */
+    protected final int m_Budget;
+
+    /**
+     * Initializes the strategy.
+     *
+     * @param budget	the maximum number of rows to measure
+     */
+    public VisibleFirst(int budget) {
+      m_Budget = budget;
+    }
+
+    /**
+     * Calculates the width of the column.
+     *
+     * @param table	the table to calculate the width for
+     * @param col	the column
+     * @param width	the width so far (e.g., of the header)
+     * @param max	the limit for the column width, -1 for unlimited
+     * @return		the width
+     */
+    @Override
+    public int calcWidth(JTable table, int col, int width, int max) {
+      Rectangle	visible;
+      int	rowCount;
+      int	first;
+      int	last;
+      int	row;
+      int	budget;
+      int	dec;
+
+      rowCount = table.getRowCount();
+      visible  = table.getVisibleRect();
+      first    = table.rowAtPoint(new Point(visible.x, visible.y));
+      last     = table.rowAtPoint(new Point(visible.x, visible.y + visible.height - 1));
+      if (first == -1)
+	first = 0;
+      if (last == -1)
+	last = Math.min(rowCount - 1, first + m_Budget - 1);
+      last = Math.min(last, first + m_Budget - 1);
+
+      for (row = first; row <= last; row++) {
+	width = Math.max(width, JTableHelper.calcCellWidth(table, row, col));
+	if ((max > -1) && (width >= max))
+	  return max;
+      }
+
+      budget = m_Budget - (last - first + 1);
+      if ((budget <= 0) || (rowCount - (last - first + 1) <= 0))
+	return width;
+      dec = Math.max(1, (int) Math.ceil((double) (rowCount - (last - first + 1)) / (double) budget));
+      for (row = rowCount - 1; row >= 0; row -= dec) {
+	if ((row >= first) && (row <= last))
+	  continue;
+	width = Math.max(width, JTableHelper.calcCellWidth(table, row, col));
+	if ((max > -1) && (width >= max))
+	  return max;
+      }
+
+      return width;
+    }
+  }
+
+  /**
+   * Splits the rows into equally sized strata and measures one randomly
+   * chosen row per stratum.
+   */
+  public static class StratifiedRandom
+    implements ColumnWidthSampling {
+
+    /** the maximum number of rows to measure. */
+    protected final int m_Budget;
+
+    /** the seed for the random number generator. */
+    protected final long m_Seed;
+
+    /**
+     * Initializes the strategy.
+     *
+     * @param budget	the maximum number of rows to measure
+     * @param seed	the seed for the random number generator
+     */
+    public StratifiedRandom(int budget, long seed) {
+      m_Budget = budget;
+      m_Seed   = seed;
+    }
+
+    /**
+     * Returns the rows to measure.
+     *
+     * @param rowCount	the number of rows
+     * @return		the rows
+     */
+    public int[] sample(int rowCount) {
+      int[]	result;
+      Random	rand;
+      double	size;
+      int	start;
+      int	end;
+      int	i;
+
+      if (rowCount <= m_Budget) {
+	result = new int[rowCount];
+	for (i = 0; i < rowCount; i++)
+	  result[i] = i;
+	return result;
+      }
+
+      result = new int[m_Budget];
+      rand   = new Random(m_Seed);
+      size   = (double) rowCount / (double) m_Budget;
+      for (i = 0; i < m_Budget; i++) {
+	start     = (int) (i * size);
+	end       = Math.min(rowCount, (int) ((i + 1) * size));
+	result[i] = start + rand.nextInt(Math.max(1, end - start));
+      }
+
+      return result;
+    }
+
+    /**
+     * Calculates the width of the column.
+     *
+     * @param table	the table to calculate the width for
+     * @param col	the column
+     * @param width	the width so far (e.g., of the header)
+     * @param max	the limit for the column width, -1 for unlimited
+     * @return		the width
+     */
+    @Override
+    public int calcWidth(JTable table, int col, int width, int max) {
+      for (int row: sample(table.getRowCount())) {
+	width = Math.max(width, JTableHelper.calcCellWidth(table, row, col));
+	if ((max > -1) && (width >= max))
+	  return max;
+      }
+
+      return width;
+    }
+  }
+
+  /**
+   * Uses the width that covers the specified percentage of the cell values,
+   * ignoring outliers. The widths of the measured cells get collected in a
+   * streaming histogram, i.e., memory usage does not depend on the number
+   * of rows.
+   */
+  public static class Percentile
+    implements ColumnWidthSampling {
+
+    /** the percentile (0-1). */
+    protected final double m_Percentile;
+
+    /** the sampling to use for selecting the rows. */
+    protected final StratifiedRandom m_Sampling;
+
+    /**
+     * Initializes the strategy.
+     *
+     * @param percentile	the percentile (0-1), e.g., 0.99
+     * @param budget		the maximum number of rows to measure
+     * @param seed		the seed for the random number generator
+     */
+    public Percentile(double percentile, int budget, long seed) {
+      m_Percentile = percentile;
+      m_Sampling   = new StratifiedRandom(budget, seed);
+    }
+
+    /**
+     * Calculates the width of the column.
+     *
+     * @param table	the table to calculate the width for
+     * @param col	the column
+     * @param width	the width so far (e.g., of the header)
+     * @param max	the limit for the column width, -1 for unlimited
+     * @return		the width
+     */
+    @Override
+    public int calcWidth(JTable table, int col, int width, int max) {
+      WidthHistogram	histogram;
+
+      histogram = new WidthHistogram();
+      for (int row: m_Sampling.sample(table.getRowCount()))
+	histogram.add(JTableHelper.calcCellWidth(table, row, col));
+      width = Math.max(width, histogram.quantile(m_Percentile));
+      if ((max > -1) && (width > max))
+	width = max;
+
+      return width;
+    }
+  }
+
+  /**
+   * Streaming quantile sketch for pixel widths, using one counter per
+   * pixel (widths beyond the limit share the last counter).
+   */
+  public static class WidthHistogram {
+
+    /** the largest width with its own counter. */
+    public final static int LIMIT = 4096;
+
+    /** the counts per width. */
+    protected final long[] m_Counts = new long[LIMIT + 1];
+
+    /** the number of widths added. */
+    protected long m_Total;
+
+    /** the largest width added. */
+    protected int m_Max;
+
+    /**
+     * Adds the width.
+     *
+     * @param width	the width to add, ignored if negative
+     */
+    public void add(int width) {
+      if (width < 0)
+	return;
+      m_Counts[Math.min(width, LIMIT)]++;
+      m_Total++;
+      m_Max = Math.max(m_Max, width);
+    }
+
+    /**
+     * Returns the number of widths added.
+     *
+     * @return		the number
+     */
+    public long size() {
+      return m_Total;
+    }
+
+    /**
+     * Returns the smallest width that covers the specified percentage of
+     * the widths added.
+     *
+     * @param percentile	the percentile (0-1)
+     * @return		the width, -1 if no widths added
+     */
+    public int quantile(double percentile) {
+      long	target;
+      long	sum;
+      int	i;
+
+      if (m_Total == 0)
+	return -1;
+      target = (long) Math.ceil(percentile * m_Total);
+      sum    = 0;
+      for (i = 0; i < LIMIT; i++) {
+	sum += m_Counts[i];
+	if (sum >= target)
+	  return i;
+      }
+
+      return m_Max;
+    }
+  }
+
+  /** the default strategy (evenly spaced rows). */
+  public final static ColumnWidthSampling STRIDED = new Strided(JTableHelper.MAX_ROWS);
+
+  /** the strategy that measures all rows. */
+  public final static ColumnWidthSampling EXACT = new Exact();
+
+  /** the strategy that measures the visible rows first. */
+  public final static ColumnWidthSampling VISIBLE_FIRST = new VisibleFirst(JTableHelper.MAX_ROWS);
+
+  /**
+   * Calculates the width of the column.
+   *
+   * @param table	the table to calculate the width for
+   * @param col		the column
+   * @param width	the width so far (e.g., of the header)
+   * @param max		the limit for the column width, -1 for unlimited
+   * @return		the width
+   */
+  public int calcWidth(JTable table, int col, int width, int max);
+}
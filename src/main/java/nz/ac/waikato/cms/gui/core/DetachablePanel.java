@@ -15,7 +15,7 @@
 
 /*
  * DetachablePanel.java
- * Copyright (C) 2016-2019 University of Waikato, Hamilton, NZ
+ * Copyright (C) 2016-2026 University of Waikato, Hamilton, NZ
  */
 
 package nz.ac.waikato.cms.gui.core;
@@ -27,6 +27,7 @@ import javax.swing.JPopupMenu;
 import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
+import java.awt.Rectangle;
 import java.awt.event.ActionEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
@@ -60,6 +61,18 @@ public class DetachablePanel
   /** the frame title to use. */
   protected String m_FrameTitle;
 
+  /** whether to keep the frame hidden after reattaching for quick re-detaching. */
+  protected boolean m_ReuseFrame;
+
+  /** the hidden frame kept for re-detaching (if reusing frames). */
+  protected BaseFrame m_HiddenFrame;
+
+  /** the last bounds of the detached frame (null if never detached). */
+  protected Rectangle m_FrameBounds;
+
+  /** the default size of the detached frame. */
+  public final static Dimension DEFAULT_FRAME_SIZE = new Dimension(800, 600);
+
   /**
    * Initializes the members.
    */
@@ -69,6 +82,9 @@ public class DetachablePanel
 
     m_PopupMenuCustomizer = null;
     m_DetachedFrame      = null;
+    m_ReuseFrame         = false;
+    m_HiddenFrame        = null;
+    m_FrameBounds        = null;
   }
 
   /**
@@ -111,6 +127,97 @@ public class DetachablePanel
     return (m_DetachedFrame != null);
   }
 
+  /**
+   * Sets whether to keep the frame hidden after reattaching rather than
+   * disposing it, allowing quick re-detaching.
+   *
+   * @param value	true if to reuse the frame
+   */
+  public void setReuseFrame(boolean value) {
+    m_ReuseFrame = value;
+    if (!m_ReuseFrame)
+      disposeHiddenFrame();
+  }
+
+  /**
+   * Returns whether to keep the frame hidden after reattaching rather than
+   * disposing it, allowing quick re-detaching.
+   *
+   * @return		true if to reuse the frame
+   */
+  public boolean isReuseFrame() {
+    return m_ReuseFrame;
+  }
+
+  /**
+   * Sets the bounds to use for the detached frame.
+   *
+   * @param value	the bounds, null to use default size
+   */
+  public void setFrameBounds(Rectangle value) {
+    m_FrameBounds = (value == null) ? null : new Rectangle(value);
+  }
+
+  /**
+   * Returns the bounds of the detached frame. Gets updated when
+   * reattaching.
+   *
+   * @return		the bounds, null if never detached
+   */
+  public Rectangle getFrameBounds() {
+    if (isDetached())
+      return m_DetachedFrame.getBounds();
+    return (m_FrameBounds == null) ? null : new Rectangle(m_FrameBounds);
+  }
+
+  /**
+   * Creates the frame for detaching the content.
+   *
+   * @return		the frame
+   */
+  protected BaseFrame newDetachedFrame() {
+    BaseFrame	result;
+
+    result = new BaseFrame(getFrameTitle());
+    result.getContentPane().setLayout(new BorderLayout());
+    if (m_ReuseFrame) {
+      result.setDefaultCloseOperation(BaseFrame.HIDE_ON_CLOSE);
+      result.addWindowListener(new WindowAdapter() {
+	@Override
+	public void windowClosing(WindowEvent e) {
+	  super.windowClosing(e);
+	  reattach();
+	}
+      });
+    }
+    else {
+      result.setDefaultCloseOperation(BaseFrame.DISPOSE_ON_CLOSE);
+      result.addWindowListener(new WindowAdapter() {
+	@Override
+	public void windowClosed(WindowEvent e) {
+	  super.windowClosed(e);
+	  reattach();
+	}
+      });
+    }
+
+    return result;
+  }
+
+  /**
+   * Updates the layout after swapping the content, skipping the layout
+   * pass if the panel is not showing (gets laid out once displayed).
+   */
+  protected void refreshLayout() {
+    if (isShowing()) {
+      revalidate();
+      repaint();
+    }
+    else {
+      invalidate();
+    }
+  }
+
   /**
    * Detaches the content into a separate frame.
    */
@@ -118,44 +225,62 @@ public class DetachablePanel
     if (isDetached())
       return;
 
-    m_DetachedFrame = new BaseFrame(getFrameTitle());
-    m_DetachedFrame.setDefaultCloseOperation(BaseFrame.DISPOSE_ON_CLOSE);
-    m_DetachedFrame.addWindowListener(new WindowAdapter() {
-      @Override
-      public void windowClosed(WindowEvent e) {
-	super.windowClosed(e);
-	reattach();
-      }
-    });
-    m_DetachedFrame.getContentPane().setLayout(new BorderLayout());
+    if (m_HiddenFrame != null) {
+      m_DetachedFrame = m_HiddenFrame;
+      m_HiddenFrame   = null;
+      m_DetachedFrame.setTitle(getFrameTitle());
+    }
+    else {
+      m_DetachedFrame = newDetachedFrame();
+    }
     m_DetachedFrame.getContentPane().add(m_ContentPanel, BorderLayout.CENTER);
-    m_DetachedFrame.pack();
-    m_DetachedFrame.setSize(new Dimension(800, 600));
-    m_DetachedFrame.setLocationRelativeTo(this);
+    if (m_FrameBounds != null) {
+      m_DetachedFrame.setBounds(m_FrameBounds);
+    }
+    else {
+      m_DetachedFrame.setSize(DEFAULT_FRAME_SIZE);
+      m_DetachedFrame.setLocationRelativeTo(this);
+    }
     m_DetachedFrame.setVisible(true);
 
     add(m_PanelReattach, BorderLayout.CENTER);
-    invalidate();
-    revalidate();
-    doLayout();
-    repaint();
+    refreshLayout();
   }
 
   /**
    * Reattaches the content from a separate frame.
    */
   public void reattach() {
+    BaseFrame	frame;
+
     if (!isDetached())
       return;
+
+    frame           = m_DetachedFrame;
+    m_DetachedFrame = null;
+    m_FrameBounds   = frame.getBounds();
+
     remove(m_PanelReattach);
     add(m_ContentPanel, BorderLayout.CENTER);
-    invalidate();
-    revalidate();
-    doLayout();
-    repaint();
+    refreshLayout();
 
-    m_DetachedFrame.dispose();
-    m_DetachedFrame = null;
+    if (m_ReuseFrame) {
+      frame.setVisible(false);
+      m_HiddenFrame = frame;
+    }
+    else {
+      frame.dispose();
+    }
+  }
+
+  /**
+   * Disposes the hidden frame kept for re-detaching, if any.
+   */
+  protected void disposeHiddenFrame() {
+    if (m_HiddenFrame != null) {
+      m_HiddenFrame.dispose();
+      m_HiddenFrame = null;
+    }
   }
 
   /**
@@ -240,5 +365,6 @@ public class DetachablePanel
   public void cleanUp() {
     if (isDetached())
       reattach();
+    disposeHiddenFrame();
   }
 }
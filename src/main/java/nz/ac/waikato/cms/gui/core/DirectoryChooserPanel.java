@@ -15,11 +15,14 @@
 
 /*
  * DirectoryChooserPanel.java
- * Copyright (C) 2011-2018 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2011-2026 University of Waikato, Hamilton, New Zealand
  */
 
 package nz.ac.waikato.cms.gui.core;
 
+import nz.ac.waikato.cms.core.PathResolver.PathState;
+import nz.ac.waikato.cms.core.PathResolver.Resolution;
+
 import java.io.File;
 
 /**
@@ -29,7 +32,7 @@ import java.io.File;
  * @author  fracpete (fracpete at waikato dot ac dot nz)
  */
 public class DirectoryChooserPanel
-  extends AbstractChooserPanel<File> {
+  extends AbstractFileChooserPanel {
 
   /** for serialization. */
   private static final long serialVersionUID = 6235369491956122980L;
@@ -106,17 +109,15 @@ public class DirectoryChooserPanel
 
   /**
    * Converts the string representation into its object representation.
+   * Does not access the file system, the canonical path gets determined
+   * in the background.
    *
    * @param value	the string value to convert
    * @return		the generated object
+   * @see		#getCanonicalCurrent()
    */
   protected File fromString(String value) {
-    try {
-      return new File(value).getCanonicalFile();
-    }
-    catch (Exception e) {
-      return new File(value);
-    }
+    return new File(value);
   }
 
   /**
@@ -140,18 +141,39 @@ public class DirectoryChooserPanel
   }
 
   /**
-   * Sets the current value.
+   * Returns whether the resolved path is valid for this chooser.
    *
-   * @param value	the value to use, can be null
-   * @return		true if successfully set
+   * @param resolution	the result to check
+   * @return		true if an existing directory
    */
-  public boolean setCurrent(File value) {
-    boolean	result;
+  @Override
+  protected boolean isValid(Resolution resolution) {
+    return (resolution.state == PathState.EXISTS) && resolution.directory;
+  }
 
-    result = super.setCurrent(value);
-    m_DirectoryChooser.setSelectedFile(getCurrent().getAbsoluteFile());
+  /**
+   * Returns whether the child is offered as completion.
+   *
+   * @param name	the name of the child
+   * @param directory	whether the child is a directory
+   * @return		true if a directory
+   */
+  @Override
+  protected boolean acceptCompletion(String name, boolean directory) {
+    return directory;
+  }
 
-    return result;
+  /**
+   * Decorates the text field with the result. Only updates the directory
+   * chooser if the file system could be accessed.
+   *
+   * @param resolution	the result, null to remove the decoration
+   */
+  @Override
+  protected void applyResolution(Resolution resolution) {
+    super.applyResolution(resolution);
+    if ((resolution != null) && (resolution.state != PathState.UNKNOWN))
+      m_DirectoryChooser.setSelectedFile(resolution.file.getAbsoluteFile());
   }
 
   /**
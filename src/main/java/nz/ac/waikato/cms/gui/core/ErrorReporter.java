@@ -0,0 +1,490 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ErrorReporter.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package nz.ac.waikato.cms.gui.core;
+
+import nz.ac.waikato.cms.core.Utils;
+
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JSplitPane;
+import javax.swing.JTextArea;
+import javax.swing.JToggleButton;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.Dialog;
+import java.awt.Font;
+import java.awt.GraphicsEnvironment;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Collects errors from any thread and displays them in a single non-modal
+ * dialog, rather than one modal dialog per error. Identical errors (same
+ * message, exception class and top stack frames) get grouped and counted.
+ * The dialog gets updated at most once per interval. Stack traces only get
+ * rendered when the user displays the details of an error. In headless
+ * environments, the errors get logged instead.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ * @see GUIHelper#reportError(Component, String, Throwable)
+ */
+public class ErrorReporter {
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(ErrorReporter.class.getName());
+
+  /** the default minimum time in msec between updates of the dialog. */
+  public final static int DEFAULT_INTERVAL = 1000;
+
+  /** the maximum number of distinct errors to keep. */
+  public final static int MAX_ENTRIES = 100;
+
+  /** the number of stack frames to use for the fingerprint. */
+  public final static int FINGERPRINT_FRAMES = 5;
+
+  /**
+   * Container for a group of identical errors.
+   */
+  public static class ErrorEntry {
+
+    /** the fingerprint. */
+    protected final String m_Fingerprint;
+
+    /** the message. */
+    protected final String m_Message;
+
+    /** the first exception, can be null. */
+    protected final Throwable m_Throwable;
+
+    /** the number of occurrences. */
+    protected int m_Count;
+
+    /** the time of the first occurrence. */
+    protected final long m_FirstTime;
+
+    /** the time of the last occurrence. */
+    protected long m_LastTime;
+
+    /** the rendered details, null if not rendered yet. */
+    protected String m_Details;
+
+    /**
+     * Initializes the entry.
+     *
+     * @param fingerprint	the fingerprint
+     * @param message		the message
+     * @param throwable		the exception, can be null
+     */
+    public ErrorEntry(String fingerprint, String message, Throwable throwable) {
+      m_Fingerprint = fingerprint;
+      m_Message     = message;
+      m_Throwable   = throwable;
+      m_Count       = 1;
+      m_FirstTime   = System.currentTimeMillis();
+      m_LastTime    = m_FirstTime;
+    }
+
+    /**
+     * Returns the fingerprint.
+     *
+     * @return		the fingerprint
+     */
+    public String getFingerprint() {
+      return m_Fingerprint;
+    }
+
+    /**
+     * Returns the message.
+     *
+     * @return		the message
+     */
+    public String getMessage() {
+      return m_Message;
+    }
+
+    /**
+     * Returns the (first) exception.
+     *
+     * @return		the exception, null if none
+     */
+    public Throwable getThrowable() {
+      return m_Throwable;
+    }
+
+    /**
+     * Returns the number of occurrences.
+     *
+     * @return		the count
+     */
+    public synchronized int getCount() {
+      return m_Count;
+    }
+
+    /**
+     * Returns the time of the first occurrence.
+     *
+     * @return		the time
+     */
+    public long getFirstTime() {
+      return m_FirstTime;
+    }
+
+    /**
+     * Returns the time of the last occurrence.
+     *
+     * @return		the time
+     */
+    public synchronized long getLastTime() {
+      return m_LastTime;
+    }
+
+    /**
+     * Records another occurrence.
+     */
+    protected synchronized void increment() {
+      m_Count++;
+      m_LastTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Returns the message and the stack trace, rendered on first call.
+     *
+     * @return		the details
+     */
+    public synchronized String getDetails() {
+      if (m_Details == null) {
+	if (m_Throwable == null)
+	  m_Details = m_Message;
+	else
+	  m_Details = m_Message + "\n" + Utils.throwableToString(m_Throwable);
+      }
+      return m_Details;
+    }
+
+    /**
+     * Returns a short description of the entry.
+     *
+     * @return		the description
+     */
+    @Override
+    public String toString() {
+      String	result;
+
+      result = getCount() + "x: " + m_Message;
+      if (m_Throwable != null)
+	result += " [" + m_Throwable.getClass().getSimpleName() + (m_Throwable.getMessage() != null ? ": " + m_Throwable.getMessage() : "") + "]";
+
+      return result;
+    }
+  }
+
+  /** the default reporter. */
+  protected static ErrorReporter m_Default;
+
+  /** the minimum time in msec between updates of the dialog. */
+  protected final int m_Interval;
+
+  /** the errors (fingerprint - entry). */
+  protected final Map<String,ErrorEntry> m_Entries;
+
+  /** the parent for the dialog. */
+  protected Component m_Parent;
+
+  /** whether an update is scheduled. */
+  protected boolean m_UpdateScheduled;
+
+  /** the time of the last update. */
+  protected long m_LastUpdate;
+
+  /** the dialog. */
+  protected DialogWithButtons m_Dialog;
+
+  /** the model for the errors. */
+  protected ArrayListModel<ErrorEntry> m_ModelErrors;
+
+  /** the list with the errors. */
+  protected JList<ErrorEntry> m_ListErrors;
+
+  /** the text area for the details. */
+  protected JTextArea m_TextDetails;
+
+  /** the scroll pane for the details. */
+  protected JScrollPane m_ScrollPaneDetails;
+
+  /** the split pane. */
+  protected JSplitPane m_SplitPane;
+
+  /** the button for showing the details. */
+  protected JToggleButton m_ButtonDetails;
+
+  /**
+   * Initializes the reporter with the default interval.
+   */
+  public ErrorReporter() {
+    this(DEFAULT_INTERVAL);
+  }
+
+  /**
+   * Initializes the reporter.
+   *
+   * @param interval	the minimum time in msec between updates of the dialog
+   */
+  public ErrorReporter(int interval) {
+    m_Interval = interval;
+    m_Entries  = new LinkedHashMap<String,ErrorEntry>(16, 0.75f, false) {
+      private static final long serialVersionUID = 4470159326093125318L;
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String,ErrorEntry> eldest) {
+	return size() > MAX_ENTRIES;
+      }
+    };
+  }
+
+  /**
+   * Returns the default reporter.
+   *
+   * @return		the reporter
+   */
+  public static synchronized ErrorReporter getDefault() {
+    if (m_Default == null)
+      m_Default = new ErrorReporter();
+    return m_Default;
+  }
+
+  /**
+   * Generates the fingerprint for the error from the message, the class of
+   * the exception and its top stack frames.
+   *
+   * @param msg		the message, can be null
+   * @param t		the exception, can be null
+   * @return		the fingerprint
+   */
+  protected String createFingerprint(String msg, Throwable t) {
+    StringBuilder	result;
+    StackTraceElement[]	trace;
+    int			i;
+
+    result = new StringBuilder((msg == null) ? "" : msg);
+    if (t != null) {
+      result.append('\n').append(t.getClass().getName());
+      trace = t.getStackTrace();
+      for (i = 0; (i < trace.length) && (i < FINGERPRINT_FRAMES); i++)
+	result.append('\n').append(trace[i]);
+    }
+
+    return result.toString();
+  }
+
+  /**
+   * Reports the error. Can be called from any thread.
+   *
+   * @param parent	the parent component for the dialog, can be null
+   * @param msg		the error message, can be null
+   * @param t		the exception, can be null
+   */
+  public void report(Component parent, String msg, Throwable t) {
+    String	fingerprint;
+    ErrorEntry	entry;
+
+    if (msg == null)
+      msg = "";
+
+    if (GraphicsEnvironment.isHeadless()) {
+      LOGGER.log(Level.SEVERE, msg, t);
+      return;
+    }
+
+    fingerprint = createFingerprint(msg, t);
+    synchronized(m_Entries) {
+      entry = m_Entries.get(fingerprint);
+      if (entry == null)
+	m_Entries.put(fingerprint, new ErrorEntry(fingerprint, msg, t));
+      else
+	entry.increment();
+      if ((m_Parent == null) && (parent != null))
+	m_Parent = parent;
+    }
+
+    scheduleUpdate();
+  }
+
+  /**
+   * Schedules an update of the dialog, unless already scheduled. Waits
+   * until the interval since the last update has passed.
+   */
+  protected void scheduleUpdate() {
+    final int	delay;
+
+    synchronized(m_Entries) {
+      if (m_UpdateScheduled)
+	return;
+      m_UpdateScheduled = true;
+      delay = (int) Math.max(0, m_LastUpdate + m_Interval - System.currentTimeMillis());
+    }
+
+    SwingUtilities.invokeLater(() -> {
+      Timer timer = new Timer(delay, e -> update());
+      timer.setRepeats(false);
+      timer.start();
+    });
+  }
+
+  /**
+   * Returns the current errors.
+   *
+   * @return		the errors, in order of first occurrence
+   */
+  public List<ErrorEntry> getEntries() {
+    synchronized(m_Entries) {
+      return new ArrayList<>(m_Entries.values());
+    }
+  }
+
+  /**
+   * Removes all errors. Must be called from the EDT.
+   */
+  public void clear() {
+    synchronized(m_Entries) {
+      m_Entries.clear();
+    }
+    if (m_ModelErrors != null)
+      m_ModelErrors.clear();
+    if (m_TextDetails != null)
+      m_TextDetails.setText("");
+  }
+
+  /**
+   * Creates the dialog.
+   *
+   * @param parent	the parent component, can be null
+   * @return		the dialog
+   */
+  protected DialogWithButtons createDialog(Component parent) {
+    final DialogWithButtons	result;
+    JPanel			panel;
+    JButton			buttonClear;
+    JButton			buttonClose;
+
+    if (GUIHelper.getParentDialog(parent) != null)
+      result = new DialogWithButtons(GUIHelper.getParentDialog(parent), "Errors", Dialog.ModalityType.MODELESS);
+    else
+      result = new DialogWithButtons(GUIHelper.getParentFrame(parent), "Errors", false);
+    result.setDefaultCloseOperation(DialogWithButtons.HIDE_ON_CLOSE);
+
+    m_ModelErrors = new ArrayListModel<>();
+    m_ListErrors  = new JList<>(m_ModelErrors);
+    m_ListErrors.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+    m_ListErrors.addListSelectionListener(e -> updateDetails());
+
+    m_TextDetails = new JTextArea();
+    m_TextDetails.setEditable(false);
+    m_TextDetails.setFont(new Font(Font.MONOSPACED, Font.PLAIN, m_TextDetails.getFont().getSize()));
+    m_ScrollPaneDetails = new JScrollPane(m_TextDetails);
+    m_ScrollPaneDetails.setVisible(false);
+
+    panel = new JPanel(new BorderLayout());
+    panel.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+    m_SplitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT, new JScrollPane(m_ListErrors), m_ScrollPaneDetails);
+    m_SplitPane.setResizeWeight(0.5);
+    panel.add(m_SplitPane, BorderLayout.CENTER);
+    result.getContentPane().add(panel, BorderLayout.CENTER);
+
+    m_ButtonDetails = new JToggleButton("Details");
+    m_ButtonDetails.addActionListener(e -> {
+      m_ScrollPaneDetails.setVisible(m_ButtonDetails.isSelected());
+      updateDetails();
+      m_SplitPane.resetToPreferredSizes();
+      m_SplitPane.revalidate();
+    });
+    result.getButtonsPanel(true).add(m_ButtonDetails);
+
+    buttonClear = new JButton("Clear");
+    buttonClear.addActionListener(e -> clear());
+    result.getButtonsPanel(false).add(buttonClear);
+
+    buttonClose = new JButton("Close");
+    buttonClose.addActionListener(e -> result.setVisible(false));
+    result.getButtonsPanel(false).add(buttonClose);
+
+    result.setSize(600, 400);
+    result.setLocationRelativeTo(parent);
+
+    return result;
+  }
+
+  /**
+   * Displays the details of the selected error, if the details are visible.
+   * Renders the stack trace only then.
+   */
+  protected void updateDetails() {
+    ErrorEntry	entry;
+
+    if (!m_ButtonDetails.isSelected())
+      return;
+    entry = m_ListErrors.getSelectedValue();
+    if (entry == null)
+      m_TextDetails.setText("");
+    else
+      m_TextDetails.setText(entry.getDetails());
+    m_TextDetails.setCaretPosition(0);
+  }
+
+  /**
+   * Updates and shows the dialog. Must be called from the EDT.
+   */
+  protected void update() {
+    List<ErrorEntry>	entries;
+    Component		parent;
+    int			selected;
+
+    synchronized(m_Entries) {
+      m_UpdateScheduled = false;
+      m_LastUpdate      = System.currentTimeMillis();
+      entries           = new ArrayList<>(m_Entries.values());
+      parent            = m_Parent;
+    }
+    if (entries.isEmpty())
+      return;
+
+    if (m_Dialog == null)
+      m_Dialog = createDialog(parent);
+
+    selected = m_ListErrors.getSelectedIndex();
+    m_ModelErrors.setAll(entries);
+    if (selected == -1)
+      selected = entries.size() - 1;
+    m_ListErrors.setSelectedIndex(Math.min(selected, entries.size() - 1));
+    m_ListErrors.repaint();
+
+    if (!m_Dialog.isVisible())
+      m_Dialog.setVisible(true);
+  }
+}
@@ -15,11 +15,14 @@
 
 /*
  * FileChooserPanel.java
- * Copyright (C) 2008-2018 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2008-2026 University of Waikato, Hamilton, New Zealand
  */
 
 package nz.ac.waikato.cms.gui.core;
 
+import nz.ac.waikato.cms.core.PathResolver.PathState;
+import nz.ac.waikato.cms.core.PathResolver.Resolution;
+
 import javax.swing.JFileChooser;
 import javax.swing.filechooser.FileFilter;
 import java.io.File;
@@ -31,7 +34,7 @@ import java.io.File;
  * @author  fracpete (fracpete at waikato dot ac dot nz)
  */
 public class FileChooserPanel
-  extends AbstractChooserPanel<File> {
+  extends AbstractFileChooserPanel {
 
   /** for serialization. */
   private static final long serialVersionUID = -8755020252465094120L;
@@ -143,6 +146,8 @@ public class FileChooserPanel
    */
   public void setFileSelectionMode(int value) {
     m_FileChooser.setFileSelectionMode(value);
+    if (m_Resolution != null)
+      applyResolution(m_Resolution);
   }
 
   /**
@@ -255,19 +260,39 @@ public class FileChooserPanel
   }
 
   /**
-   * Sets the current value.
+   * Returns whether the resolved path is valid for this chooser. When
+   * using the save dialog, missing files are valid as well.
    *
-   * @param value	the value to use, can be null
-   * @return		true if successfully set
+   * @param resolution	the result to check
+   * @return		true if valid
    */
   @Override
-  public boolean setCurrent(File value) {
-    boolean	result;
-
-    result = super.setCurrent(value);
-    m_FileChooser.setSelectedFile(getCurrent().getAbsoluteFile());
+  protected boolean isValid(Resolution resolution) {
+    if (resolution.state == PathState.MISSING)
+      return m_UseSaveDialog;
+    if (resolution.state != PathState.EXISTS)
+      return false;
+    switch (getFileSelectionMode()) {
+      case JFileChooser.FILES_ONLY:
+	return !resolution.directory;
+      case JFileChooser.DIRECTORIES_ONLY:
+	return resolution.directory;
+      default:
+	return true;
+    }
+  }
 
-    return result;
+  /**
+   * Decorates the text field with the result. Only updates the file
+   * chooser if the file system could be accessed.
+   *
+   * @param resolution	the result, null to remove the decoration
+   */
+  @Override
+  protected void applyResolution(Resolution resolution) {
+    super.applyResolution(resolution);
+    if ((resolution != null) && (resolution.state != PathState.UNKNOWN))
+      m_FileChooser.setSelectedFile(resolution.file.getAbsoluteFile());
   }
 
   /**
@@ -277,6 +302,8 @@ public class FileChooserPanel
    */
   public void setUseSaveDialog(boolean value) {
     m_UseSaveDialog = value;
+    if (m_Resolution != null)
+      applyResolution(m_Resolution);
   }
 
   /**
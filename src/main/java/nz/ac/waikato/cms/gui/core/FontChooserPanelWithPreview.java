@@ -1,6 +1,6 @@
 /*
  * Copyright (c) Ian F. Darwin, http://www.darwinsys.com/, 1996-2002.
- * Copyright (C) 2010 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2010-2026 University of Waikato, Hamilton, New Zealand
  *
  * All rights reserved. Software written by Ian F. Darwin and others.
  * $Id: LICENSE,v 1.8 2004/02/09 03:33:38 ian Exp $
@@ -38,7 +38,6 @@
 package nz.ac.waikato.cms.gui.core;
 
 import javax.swing.BorderFactory;
-import javax.swing.DefaultListModel;
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
 import javax.swing.JFrame;
@@ -88,7 +87,7 @@ public class FontChooserPanelWithPreview
   protected JList m_ListFontName;
 
   /** The font name chooser model. */
-  protected DefaultListModel m_ModelFontName;
+  protected ArrayListModel<String> m_ModelFontName;
 
   /** The font size chooser. */
   protected JList m_ListFontSize;
@@ -125,9 +124,7 @@ public class FontChooserPanelWithPreview
     panelFonts.setBorder(BorderFactory.createEmptyBorder(5, 0, 5, 0));
     add(panelFonts, BorderLayout.NORTH);
 
-    m_ModelFontName = new DefaultListModel();
-    for (String name: GraphicsEnvironment.getLocalGraphicsEnvironment().getAvailableFontFamilyNames())
-      m_ModelFontName.addElement(name);
+    m_ModelFontName = new ArrayListModel<>(GraphicsEnvironment.getLocalGraphicsEnvironment().getAvailableFontFamilyNames());
     m_ListFontName  = new JList(m_ModelFontName);
     m_ListFontName.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
     m_ListFontName.setSelectedIndex(0);
@@ -15,7 +15,7 @@
 
 /*
  * GUIHelper.java
- * Copyright (C) 2015-2018 University of Waikato, Hamilton, NZ
+ * Copyright (C) 2015-2026 University of Waikato, Hamilton, NZ
  */
 
 package nz.ac.waikato.cms.gui.core;
@@ -32,6 +32,7 @@ import java.awt.Dialog;
 import java.awt.Frame;
 import java.awt.event.WindowEvent;
 import java.awt.event.WindowListener;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Helper class for GUI related stuff.
@@ -54,19 +55,40 @@ public class GUIHelper {
   }
 
   /**
-   * Returns an ImageIcon from the given name.
+   * Returns an ImageIcon from the given name. The icons get cached and
+   * shared, i.e., they must not be modified.
    *
    * @param name	the filename without path
    * @return		the ImageIcon or null if not available
+   * @see		IconCache
    */
   public static ImageIcon getIcon(String name) {
-    String	filename;
+    return IconCache.getDefault().getIcon(getImageFilename(name));
+  }
 
-    filename = getImageFilename(name);
-    if (filename != null)
-      return new ImageIcon(GUIHelper.class.getClassLoader().getResource(filename));
-    else
-      return null;
+  /**
+   * Returns an ImageIcon from the given name in the specified scale, e.g.,
+   * for HiDPI screens. Uses a variant of the image for the scale if
+   * available (e.g., "add@2x.gif"). The icons get cached and shared,
+   * i.e., they must not be modified.
+   *
+   * @param name	the filename without path
+   * @param scale	the scale factor (1 = original size)
+   * @return		the ImageIcon or null if not available
+   * @see		IconCache
+   */
+  public static ImageIcon getIcon(String name, double scale) {
+    return IconCache.getDefault().getIcon(getImageFilename(name), scale);
+  }
+
+  /**
+   * Loads all images of the images directory into the icon cache in the
+   * background, e.g., at application startup.
+   *
+   * @return		the future number of loaded images
+   */
+  public static CompletableFuture<Integer> preloadIcons() {
+    return IconCache.getDefault().preload(getImageFilename(""));
   }
 
   /**
@@ -281,6 +303,20 @@ public class GUIHelper {
     return caption.replace("" + MNEMONIC_INDICATOR, "");
   }
 
+  /**
+   * Reports the error in the non-modal error dialog, grouping identical
+   * errors. Can be called from any thread, e.g., for errors in background
+   * jobs that can occur repeatedly.
+   *
+   * @param parent	the parent for the dialog; can be null
+   * @param msg		the error message to display
+   * @param t 		the exception, can be null
+   * @see		ErrorReporter
+   */
+  public static void reportError(Component parent, String msg, Throwable t) {
+    ErrorReporter.getDefault().report(parent, msg, t);
+  }
+
   /**
    * Displays an error message with the default title "Error".
    *
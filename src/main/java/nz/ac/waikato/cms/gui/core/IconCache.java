@@ -0,0 +1,349 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * IconCache.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package nz.ac.waikato.cms.gui.core;
+
+import nz.ac.waikato.cms.core.ThreadUtils;
+
+import javax.swing.ImageIcon;
+import java.awt.Image;
+import java.io.File;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Thread-safe LRU cache for icons loaded from the classpath, keyed by
+ * resource name and scale factor. The cached icons are shared, i.e., they
+ * must not be modified.
+ * <br>
+ * For scale factors other than 1, a variant with the scale factor in its
+ * name is used if available (e.g., "add@2x.gif" for "add.gif" and
+ * scale 2), otherwise the image gets scaled.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ * @see GUIHelper#getIcon(String)
+ */
+public class IconCache {
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(IconCache.class.getName());
+
+  /** the default number of cached icons. */
+  public final static int DEFAULT_CACHE_SIZE = 500;
+
+  /** the default cache. */
+  protected static IconCache m_Default;
+
+  /** the cached icons. */
+  protected final Map<String,ImageIcon> m_Cache;
+
+  /** the number of cache hits. */
+  protected final AtomicLong m_Hits;
+
+  /** the number of cache misses. */
+  protected final AtomicLong m_Misses;
+
+  /**
+   * Initializes the cache with the default size.
+   */
+  public IconCache() {
+    this(DEFAULT_CACHE_SIZE);
+  }
+
+  /**
+   * Initializes the cache.
+   *
+   * @param cacheSize	the maximum number of cached icons
+   */
+  public IconCache(final int cacheSize) {
+    m_Hits   = new AtomicLong();
+    m_Misses = new AtomicLong();
+    m_Cache  = new LinkedHashMap<String,ImageIcon>(16, 0.75f, true) {
+      private static final long serialVersionUID = 8143706290781356218L;
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String,ImageIcon> eldest) {
+	return size() > cacheSize;
+      }
+    };
+  }
+
+  /**
+   * Returns the default cache.
+   *
+   * @return		the cache
+   */
+  public static synchronized IconCache getDefault() {
+    if (m_Default == null)
+      m_Default = new IconCache();
+    return m_Default;
+  }
+
+  /**
+   * Generates the key for the cache.
+   *
+   * @param resource	the resource name
+   * @param scale	the scale factor
+   * @return		the key
+   */
+  protected String createKey(String resource, double scale) {
+    if (scale == 1.0)
+      return resource;
+    return resource + "@" + scale;
+  }
+
+  /**
+   * Returns the name of the resource variant for the scale factor, e.g.,
+   * "add@2x.gif" for "add.gif" and scale 2.
+   *
+   * @param resource	the resource name
+   * @param scale	the scale factor
+   * @return		the variant name
+   */
+  public static String getVariant(String resource, double scale) {
+    String	suffix;
+    int		pos;
+
+    if (scale == Math.rint(scale))
+      suffix = "@" + (int) scale + "x";
+    else
+      suffix = "@" + scale + "x";
+    pos = resource.lastIndexOf('.');
+    if (pos <= resource.lastIndexOf('/'))
+      return resource + suffix;
+    return resource.substring(0, pos) + suffix + resource.substring(pos);
+  }
+
+  /**
+   * Returns the icon for the resource.
+   *
+   * @param resource	the resource name (path on the classpath)
+   * @return		the icon, null if not available
+   */
+  public ImageIcon getIcon(String resource) {
+    return getIcon(resource, 1.0);
+  }
+
+  /**
+   * Returns the icon for the resource in the specified scale.
+   *
+   * @param resource	the resource name (path on the classpath)
+   * @param scale	the scale factor (1 = original size)
+   * @return		the icon, null if not available
+   */
+  public ImageIcon getIcon(String resource, double scale) {
+    ImageIcon	result;
+    String	key;
+
+    key = createKey(resource, scale);
+    synchronized(m_Cache) {
+      result = m_Cache.get(key);
+    }
+    if (result != null) {
+      m_Hits.incrementAndGet();
+      return result;
+    }
+
+    m_Misses.incrementAndGet();
+    result = load(resource, scale);
+    if (result != null) {
+      synchronized(m_Cache) {
+	m_Cache.put(key, result);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Loads the icon.
+   *
+   * @param resource	the resource name
+   * @param scale	the scale factor
+   * @return		the icon, null if not available
+   */
+  protected ImageIcon load(String resource, double scale) {
+    ImageIcon	base;
+    URL		url;
+    int		width;
+    int		height;
+
+    if (scale != 1.0) {
+      url = IconCache.class.getClassLoader().getResource(getVariant(resource, scale));
+      if (url != null)
+	return new ImageIcon(url);
+      base = getIcon(resource);
+      if (base == null)
+	return null;
+      width  = Math.max(1, (int) Math.round(base.getIconWidth() * scale));
+      height = Math.max(1, (int) Math.round(base.getIconHeight() * scale));
+      return new ImageIcon(base.getImage().getScaledInstance(width, height, Image.SCALE_SMOOTH));
+    }
+
+    url = IconCache.class.getClassLoader().getResource(resource);
+    if (url == null)
+      return null;
+
+    return new ImageIcon(url);
+  }
+
+  /**
+   * Lists the resources in the directory on the classpath (files or jar).
+   *
+   * @param dir		the directory, with trailing slash
+   * @return		the resource names
+   * @throws Exception	if listing fails
+   */
+  protected List<String> list(String dir) throws Exception {
+    List<String>		result;
+    URL				url;
+    URLConnection		conn;
+    JarFile			jar;
+    Enumeration<JarEntry>	entries;
+    String			name;
+    File[]			files;
+
+    result = new ArrayList<>();
+    url    = IconCache.class.getClassLoader().getResource(dir);
+    if (url == null)
+      return result;
+
+    if (url.getProtocol().equals("file")) {
+      files = new File(url.toURI()).listFiles();
+      if (files != null) {
+	for (File file: files) {
+	  if (file.isFile())
+	    result.add(dir + file.getName());
+	}
+      }
+    }
+    else {
+      conn = url.openConnection();
+      if (conn instanceof JarURLConnection) {
+	jar     = ((JarURLConnection) conn).getJarFile();
+	entries = jar.entries();
+	while (entries.hasMoreElements()) {
+	  name = entries.nextElement().getName();
+	  if (name.startsWith(dir) && (name.length() > dir.length()) && (name.indexOf('/', dir.length()) == -1))
+	    result.add(name);
+	}
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Loads all images in the directory on the classpath in the background.
+   *
+   * @param dir		the directory, with trailing slash
+   * @return		the future number of loaded images
+   */
+  public CompletableFuture<Integer> preload(final String dir) {
+    final CompletableFuture<Integer>	result;
+    Thread				thread;
+
+    result = new CompletableFuture<>();
+    thread = ThreadUtils.newThreadFactory("IconCache").newThread(() -> {
+      int count = 0;
+      try {
+	for (String resource: list(dir)) {
+	  if (getIcon(resource) != null)
+	    count++;
+	}
+	result.complete(count);
+      }
+      catch (Throwable t) {
+	LOGGER.log(Level.WARNING, "Failed to preload images: " + dir, t);
+	result.completeExceptionally(t);
+      }
+    });
+    thread.start();
+
+    return result;
+  }
+
+  /**
+   * Returns the number of cache hits.
+   *
+   * @return		the hits
+   */
+  public long getHitCount() {
+    return m_Hits.get();
+  }
+
+  /**
+   * Returns the number of cache misses.
+   *
+   * @return		the misses
+   */
+  public long getMissCount() {
+    return m_Misses.get();
+  }
+
+  /**
+   * Returns the hit rate.
+   *
+   * @return		the rate (0-1), 0 if no requests yet
+   */
+  public double getHitRate() {
+    long	hits;
+    long	total;
+
+    hits  = m_Hits.get();
+    total = hits + m_Misses.get();
+    if (total == 0)
+      return 0.0;
+    return (double) hits / (double) total;
+  }
+
+  /**
+   * Returns the number of cached icons.
+   *
+   * @return		the number
+   */
+  public int size() {
+    synchronized(m_Cache) {
+      return m_Cache.size();
+    }
+  }
+
+  /**
+   * Removes all icons and resets the counters.
+   */
+  public void clear() {
+    synchronized(m_Cache) {
+      m_Cache.clear();
+    }
+    m_Hits.set(0);
+    m_Misses.set(0);
+  }
+}
@@ -0,0 +1,1314 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * IndexedRowSorter.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package nz.ac.waikato.cms.gui.core;
+
+import nz.ac.waikato.cms.core.ThreadUtils;
+
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.SwingUtilities;
+import javax.swing.table.TableModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.logging.Level;
+import java.util.stream.IntStream;
+
+/**
+ * Row sorter for large tables that sorts and filters in the background.
+ * Per column, a sort index (permutation of the model rows as
+ * <code>int[]</code>) gets built once and reused until the model changes;
+ * large models get sorted in parallel. Filtering uses a case-insensitive
+ * substring match, and extending the filter text only checks the rows
+ * that matched the previous text. The new view mapping gets swapped in on
+ * the EDT, the previous mapping stays in use until then.
+ * <br>
+ * The cell values get copied on the EDT (only for the columns that are
+ * required), as table models are not thread-safe. Model changes get applied
+ * to the current mapping immediately (inserted rows get appended to the
+ * view). Inserted/deleted rows patch the cached data (only the sort indices
+ * get discarded on inserts) and trigger sorting/filtering again, coalescing
+ * consecutive events into a single update. Updated cells only patch the
+ * cached data of the affected rows and columns; like with
+ * DefaultRowSorter, the rows only get sorted/filtered again on updates if
+ * enabled via {@link #setSortsOnUpdates(boolean)}.
+ * <br>
+ * Must be used from the event dispatch thread only.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ * @see JTableHelper#setIndexedRowSorter(javax.swing.JTable)
+ */
+public class IndexedRowSorter<M extends TableModel>
+  extends RowSorter<M> {
+
+  /** the number of rows from which on sorting/filtering happens in parallel. */
+  public final static int PARALLEL_THRESHOLD = 100000;
+
+  /** the maximum number of threads for sorting/filtering. */
+  public final static int MAX_THREADS = 4;
+
+  /** the maximum number of sort keys. */
+  public final static int MAX_SORT_KEYS = 3;
+
+  /**
+   * Compares two model rows.
+   */
+  public interface RowComparator {
+
+    /**
+     * Compares the two rows.
+     *
+     * @param row1	the first model row
+     * @param row2	the second model row
+     * @return		less than, equal to or greater than zero
+     */
+    public int compare(int row1, int row2);
+  }
+
+  /**
+   * Stable parallel merge sort for row indices.
+   */
+  protected static class MergeSort
+    extends RecursiveAction {
+
+    private static final long serialVersionUID = 6541893315790532246L;
+
+    /** the size below which to sort sequentially. */
+    public final static int THRESHOLD = 8192;
+
+    /** the indices to sort. */
+    protected final int[] m_Indices;
+
+    /** the buffer. */
+    protected final int[] m_Buffer;
+
+    /** the first index (incl). */
+    protected final int m_From;
+
+    /** the last index (excl). */
+    protected final int m_To;
+
+    /** the comparator. */
+    protected final RowComparator m_Comparator;
+
+    /**
+     * Initializes the task.
+     *
+     * @param indices		the indices to sort
+     * @param buffer		the buffer (same length)
+     * @param from		the first index (incl)
+     * @param to		the last index (excl)
+     * @param comparator	the comparator
+     */
+    public MergeSort(int[] indices, int[] buffer, int from, int to, RowComparator comparator) {
+      m_Indices    = indices;
+      m_Buffer     = buffer;
+      m_From       = from;
+      m_To         = to;
+      m_Comparator = comparator;
+    }
+
+    /**
+     * Sorts the range.
+     */
+    @Override
+    protected void compute() {
+      int	mid;
+
+      if (m_To - m_From <= THRESHOLD) {
+	sort(m_Indices, m_Buffer, m_From, m_To, m_Comparator);
+	return;
+      }
+      mid = (m_From + m_To) >>> 1;
+      invokeAll(
+	new MergeSort(m_Indices, m_Buffer, m_From, mid, m_Comparator),
+	new MergeSort(m_Indices, m_Buffer, mid, m_To, m_Comparator));
+      merge(m_Indices, m_Buffer, m_From, mid, m_To, m_Comparator);
+    }
+
+    /**
+     * Sorts the range sequentially.
+     *
+     * @param indices		the indices to sort
+     * @param buffer		the buffer (same length)
+     * @param from		the first index (incl)
+     * @param to		the last index (excl)
+     * @param comparator	the comparator
+     */
+    public static void sort(int[] indices, int[] buffer, int from, int to, RowComparator comparator) {
+      int	mid;
+      int	i;
+      int	j;
+      int	value;
+
+      if (to - from <= 16) {
+	for (i = from + 1; i < to; i++) {
+	  value = indices[i];
+	  for (j = i - 1; (j >= from) && (comparator.compare(indices[j], value) > 0); j--)
+	    indices[j + 1] = indices[j];
+	  indices[j + 1] = value;
+	}
+	return;
+      }
+      mid = (from + to) >>> 1;
+      sort(indices, buffer, from, mid, comparator);
+      sort(indices, buffer, mid, to, comparator);
+      merge(indices, buffer, from, mid, to, comparator);
+    }
+
+    /**
+     * Merges the two sorted ranges.
+     *
+     * @param indices		the indices
+     * @param buffer		the buffer (same length)
+     * @param from		the first index of the first range (incl)
+     * @param mid		the first index of the second range
+     * @param to		the last index of the second range (excl)
+     * @param comparator	the comparator
+     */
+    protected static void merge(int[] indices, int[] buffer, int from, int mid, int to, RowComparator comparator) {
+      int	i;
+      int	j;
+      int	n;
+
+      if (comparator.compare(indices[mid - 1], indices[mid]) <= 0)
+	return;
+      System.arraycopy(indices, from, buffer, from, to - from);
+      i = from;
+      j = mid;
+      n = from;
+      while ((i < mid) && (j < to)) {
+	if (comparator.compare(buffer[j], buffer[i]) < 0)
+	  indices[n++] = buffer[j++];
+	else
+	  indices[n++] = buffer[i++];
+      }
+      while (i < mid)
+	indices[n++] = buffer[i++];
+      while (j < to)
+	indices[n++] = buffer[j++];
+    }
+  }
+
+  /**
+   * The sort index of a column.
+   */
+  protected static class ColumnIndex {
+
+    /** the model rows in ascending order of the values. */
+    public final int[] order;
+
+    /** the rank of the value per model row (equal values share the rank). */
+    public final int[] rank;
+
+    /**
+     * Initializes the index.
+     *
+     * @param order	the model rows in ascending order
+     * @param rank	the rank per model row
+     */
+    public ColumnIndex(int[] order, int[] rank) {
+      this.order = order;
+      this.rank  = rank;
+    }
+  }
+
+  /**
+   * The result of sorting.
+   */
+  protected static class SortResult {
+
+    /** the sort keys. */
+    public final List<SortKey> keys;
+
+    /** the sorted model rows. */
+    public final int[] rows;
+
+    /**
+     * Initializes the result.
+     *
+     * @param keys	the sort keys
+     * @param rows	the sorted rows
+     */
+    public SortResult(List<SortKey> keys, int[] rows) {
+      this.keys = keys;
+      this.rows = rows;
+    }
+  }
+
+  /**
+   * The result of filtering.
+   */
+  protected static class FilterResult {
+
+    /** the (lower case) filter text. */
+    public final String text;
+
+    /** the model columns that were searched. */
+    public final int[] columns;
+
+    /** the matching model rows, ascending. */
+    public final int[] rows;
+
+    /**
+     * Initializes the result.
+     *
+     * @param text	the filter text
+     * @param columns	the columns
+     * @param rows	the matching rows
+     */
+    public FilterResult(String text, int[] columns, int[] rows) {
+      this.text    = text;
+      this.columns = columns;
+      this.rows    = rows;
+    }
+  }
+
+  /**
+   * The cached data for the current state of the model, gets replaced
+   * whenever the model changes.
+   */
+  protected static class ModelState {
+
+    /** the number of rows. */
+    public final int rowCount;
+
+    /** the lower case strings per model column. */
+    public final Map<Integer,String[]> strings;
+
+    /** the sort indices per model column. */
+    public final Map<Integer,ColumnIndex> indices;
+
+    /** the last sort result. */
+    public volatile SortResult sorted;
+
+    /** the last filter result. */
+    public volatile FilterResult filtered;
+
+    /**
+     * Initializes the state.
+     *
+     * @param rowCount	the number of rows
+     */
+    public ModelState(int rowCount) {
+      this.rowCount = rowCount;
+      this.strings  = new ConcurrentHashMap<>();
+      this.indices  = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Initializes the state with the data of the other state.
+     *
+     * @param other	the state to copy
+     */
+    public ModelState(ModelState other) {
+      this.rowCount = other.rowCount;
+      this.strings  = new ConcurrentHashMap<>(other.strings);
+      this.indices  = new ConcurrentHashMap<>(other.indices);
+      this.sorted   = other.sorted;
+      this.filtered = other.filtered;
+    }
+  }
+
+  /** the pool for sorting/filtering (shared across sorters). */
+  protected static ForkJoinPool m_Pool;
+
+  /** the model. */
+  protected M m_Model;
+
+  /** the sort keys. */
+  protected List<SortKey> m_SortKeys;
+
+  /** the (lower case) filter text, null if none. */
+  protected String m_FilterText;
+
+  /** the model columns to filter on, null for all. */
+  protected int[] m_FilterColumns;
+
+  /** the view to model mapping, null if identity. */
+  protected int[] m_ViewToModel;
+
+  /** the model to view mapping, null if identity. */
+  protected int[] m_ModelToView;
+
+  /** the cached model data. */
+  protected ModelState m_State;
+
+  /** the counter for the update requests, to discard outdated results. */
+  protected long m_Generation;
+
+  /** the current update, null if none. */
+  protected CompletableFuture<int[]> m_Update;
+
+  /** whether to sort/filter again when cells get updated. */
+  protected boolean m_SortsOnUpdates;
+
+  /** whether an update has been scheduled already. */
+  protected boolean m_UpdateScheduled;
+
+  /**
+   * Initializes the sorter.
+   *
+   * @param model	the model to sort
+   */
+  public IndexedRowSorter(M model) {
+    m_Model    = model;
+    m_SortKeys = Collections.emptyList();
+    m_State    = new ModelState(model.getRowCount());
+  }
+
+  /**
+   * Returns the pool for sorting/filtering.
+   *
+   * @return		the pool
+   */
+  protected static synchronized ForkJoinPool getPool() {
+    if (m_Pool == null)
+      m_Pool = new ForkJoinPool(ThreadUtils.getNumThreads(MAX_THREADS));
+    return m_Pool;
+  }
+
+  /**
+   * Returns the underlying model.
+   *
+   * @return		the model
+   */
+  @Override
+  public M getModel() {
+    return m_Model;
+  }
+
+  /**
+   * Makes the column the primary sort key (ascending), or reverses the
+   * order if already the primary sort key.
+   *
+   * @param column	the model column
+   */
+  @Override
+  public void toggleSortOrder(int column) {
+    List<SortKey>	keys;
+    SortKey		key;
+    int			i;
+
+    keys = new ArrayList<>(m_SortKeys);
+    key  = null;
+    for (i = 0; i < keys.size(); i++) {
+      if (keys.get(i).getColumn() == column) {
+	key = keys.remove(i);
+	break;
+      }
+    }
+    if ((key != null) && (i == 0))
+      key = new SortKey(column, key.getSortOrder() == SortOrder.ASCENDING ? SortOrder.DESCENDING : SortOrder.ASCENDING);
+    else
+      key = new SortKey(column, SortOrder.ASCENDING);
+    keys.add(0, key);
+    while (keys.size() > MAX_SORT_KEYS)
+      keys.remove(keys.size() - 1);
+    setSortKeys(keys);
+  }
+
+  /**
+   * Sets the sort keys and sorts the rows in the background.
+   *
+   * @param keys	the keys, null or empty for unsorted
+   */
+  @Override
+  public void setSortKeys(List<? extends SortKey> keys) {
+    List<SortKey>	list;
+
+    list = new ArrayList<>();
+    if (keys != null) {
+      for (SortKey key: keys) {
+	if (key.getSortOrder() != SortOrder.UNSORTED)
+	  list.add(key);
+      }
+    }
+    if (list.equals(m_SortKeys))
+      return;
+    m_SortKeys = Collections.unmodifiableList(list);
+    fireSortOrderChanged();
+    update();
+  }
+
+  /**
+   * Returns the sort keys.
+   *
+   * @return		the keys
+   */
+  @Override
+  public List<? extends SortKey> getSortKeys() {
+    return m_SortKeys;
+  }
+
+  /**
+   * Sets the filter text to search for (case-insensitive) in all columns.
+   *
+   * @param text	the text, null or empty to show all rows
+   * @see		#setFilterText(String, int...)
+   */
+  public void setFilterText(String text) {
+    setFilterText(text, (int[]) null);
+  }
+
+  /**
+   * Sets the filter text to search for (case-insensitive) in the specified
+   * columns and filters the rows in the background.
+   *
+   * @param text	the text, null or empty to show all rows
+   * @param columns	the model columns to search, null for all
+   */
+  public void setFilterText(String text, int... columns) {
+    if ((text != null) && text.isEmpty())
+      text = null;
+    if (text != null)
+      text = text.toLowerCase();
+    if (((text == null) ? m_FilterText == null : text.equals(m_FilterText)) && Arrays.equals(columns, m_FilterColumns))
+      return;
+    m_FilterText    = text;
+    m_FilterColumns = (columns == null) ? null : columns.clone();
+    update();
+  }
+
+  /**
+   * Returns the (lower case) filter text.
+   *
+   * @return		the text, null if none
+   */
+  public String getFilterText() {
+    return m_FilterText;
+  }
+
+  /**
+   * Sets whether to sort/filter the rows again when cells get updated.
+   * Off by default, i.e., updated rows stay in place until the next
+   * sort/filter request.
+   *
+   * @param value	true if to sort/filter on updates
+   */
+  public void setSortsOnUpdates(boolean value) {
+    m_SortsOnUpdates = value;
+  }
+
+  /**
+   * Returns whether to sort/filter the rows again when cells get updated.
+   *
+   * @return		true if to sort/filter on updates
+   */
+  public boolean getSortsOnUpdates() {
+    return m_SortsOnUpdates;
+  }
+
+  /**
+   * Returns the update that is currently in progress.
+   *
+   * @return		the future view to model mapping (null if identity), completed if none in progress
+   */
+  public CompletableFuture<int[]> getUpdate() {
+    if (m_Update == null)
+      return CompletableFuture.completedFuture(m_ViewToModel);
+    return m_Update;
+  }
+
+  /**
+   * Returns the model columns that the filter text applies to.
+   *
+   * @return		the columns
+   */
+  protected int[] getFilterColumns() {
+    int[]	result;
+    int		i;
+
+    if (m_FilterColumns != null)
+      return m_FilterColumns;
+    result = new int[m_Model.getColumnCount()];
+    for (i = 0; i < result.length; i++)
+      result[i] = i;
+
+    return result;
+  }
+
+  /**
+   * Copies the values of the model column, unless already present.
+   *
+   * @param values	the values per column to add to
+   * @param column	the model column
+   */
+  protected void copyValues(Map<Integer,Object[]> values, int column) {
+    Object[]	copy;
+    int		row;
+
+    if (values.containsKey(column) || (column >= m_Model.getColumnCount()))
+      return;
+    copy = new Object[m_Model.getRowCount()];
+    for (row = 0; row < copy.length; row++)
+      copy[row] = m_Model.getValueAt(row, column);
+    values.put(column, copy);
+  }
+
+  /**
+   * Sorts and filters the rows in the background, using the current sort
+   * keys and filter text. The cell values required get copied beforehand.
+   */
+  protected void update() {
+    final long			generation;
+    final ModelState		state;
+    final List<SortKey>		keys;
+    final String		text;
+    final int[]			columns;
+    final Map<Integer,Object[]>	values;
+    CompletableFuture<int[]>	update;
+
+    m_Generation++;
+    generation = m_Generation;
+    state      = m_State;
+    keys       = m_SortKeys;
+    text       = m_FilterText;
+    columns    = (text == null) ? null : getFilterColumns();
+
+    if (keys.isEmpty() && (text == null)) {
+      m_Update = null;
+      apply(null);
+      return;
+    }
+
+    values = new HashMap<>();
+    for (SortKey key: keys) {
+      if (!state.indices.containsKey(key.getColumn()))
+	copyValues(values, key.getColumn());
+    }
+    if (text != null) {
+      for (int column: columns) {
+	if (!state.strings.containsKey(column))
+	  copyValues(values, column);
+      }
+    }
+
+    update   = CompletableFuture.supplyAsync(() -> calcMapping(state, values, keys, text, columns), getPool());
+    m_Update = update;
+    update.whenComplete((int[] mapping, Throwable t) -> SwingUtilities.invokeLater(() -> {
+      if (generation != m_Generation)
+	return;
+      m_Update = null;
+      if (t != null)
+	JTableHelper.LOGGER.log(Level.SEVERE, "Failed to sort/filter rows!", t);
+      else if (!Arrays.equals(mapping, m_ViewToModel))
+	apply(mapping);
+    }));
+  }
+
+  /**
+   * Calculates the view to model mapping (in the background).
+   *
+   * @param state	the cached model data
+   * @param values	the copied cell values of the columns not cached yet
+   * @param keys	the sort keys
+   * @param text	the filter text, null if none
+   * @param columns	the model columns to filter on
+   * @return		the mapping, null if identity
+   */
+  protected int[] calcMapping(ModelState state, Map<Integer,Object[]> values, List<SortKey> keys, String text, int[] columns) {
+    int[]	order;
+    int[]	matched;
+    boolean[]	include;
+    int		n;
+
+    order   = keys.isEmpty() ? null : sort(state, values, keys);
+    matched = (text == null) ? null : filter(state, values, text, columns);
+
+    if (matched == null)
+      return order;
+    if (order == null)
+      return matched;
+    include = new boolean[state.rowCount];
+    for (int row: matched)
+      include[row] = true;
+    n = 0;
+    for (int row: order) {
+      if (include[row])
+	order[n++] = row;
+    }
+
+    return Arrays.copyOf(order, n);
+  }
+
+  /**
+   * Compares two cell values: nulls first, then comparables of the same
+   * class, then the string representations.
+   *
+   * @param o1		the first value
+   * @param o2		the second value
+   * @return		the comparison
+   */
+  @SuppressWarnings("unchecked")
+  protected int compareValues(Object o1, Object o2) {
+    if (o1 == o2)
+      return 0;
+    if (o1 == null)
+      return -1;
+    if (o2 == null)
+      return 1;
+    if ((o1 instanceof Comparable) && (o1.getClass() == o2.getClass()))
+      return ((Comparable) o1).compareTo(o2);
+    return o1.toString().compareTo(o2.toString());
+  }
+
+  /**
+   * Sorts the row indices, in parallel for large arrays.
+   *
+   * @param indices	the indices to sort
+   * @param comparator	the comparator to use
+   */
+  protected void sortIndices(int[] indices, RowComparator comparator) {
+    int[]	buffer;
+
+    buffer = new int[indices.length];
+    if (indices.length >= PARALLEL_THRESHOLD)
+      getPool().invoke(new MergeSort(indices, buffer, 0, indices.length, comparator));
+    else
+      MergeSort.sort(indices, buffer, 0, indices.length, comparator);
+  }
+
+  /**
+   * Returns the sort index for the model column, builds it if necessary.
+   *
+   * @param state	the cached model data
+   * @param values	the copied cell values of the columns not cached yet
+   * @param column	the model column
+   * @return		the index
+   */
+  protected ColumnIndex getIndex(ModelState state, Map<Integer,Object[]> values, int column) {
+    ColumnIndex		result;
+    final Object[]	copy;
+    int[]		order;
+    int[]		rank;
+    int			i;
+
+    result = state.indices.get(column);
+    if (result != null)
+      return result;
+
+    copy  = values.get(column);
+    order = new int[state.rowCount];
+    for (i = 0; i < order.length; i++)
+      order[i] = i;
+    if (copy != null)
+      sortIndices(order, (int row1, int row2) -> compareValues(copy[row1], copy[row2]));
+    rank = new int[state.rowCount];
+    for (i = 1; i < order.length; i++)
+      rank[order[i]] = rank[order[i - 1]] + (((copy != null) && (compareValues(copy[order[i - 1]], copy[order[i]]) != 0)) ? 1 : 0);
+    result = new ColumnIndex(order, rank);
+    state.indices.put(column, result);
+
+    return result;
+  }
+
+  /**
+   * Sorts the model rows according to the sort keys.
+   *
+   * @param state	the cached model data
+   * @param values	the copied cell values of the columns not cached yet
+   * @param keys	the sort keys
+   * @return		the sorted model rows
+   */
+  protected int[] sort(ModelState state, Map<Integer,Object[]> values, List<SortKey> keys) {
+    final int[][]	ranks;
+    final boolean[]	descending;
+    SortResult		previous;
+    ColumnIndex		index;
+    int[]		result;
+    int			i;
+
+    // same keys as last time?
+    previous = state.sorted;
+    if ((previous != null) && keys.equals(previous.keys))
+      return previous.rows.clone();
+
+    // single ascending key: use index directly
+    if ((keys.size() == 1) && (keys.get(0).getSortOrder() == SortOrder.ASCENDING))
+      return getIndex(state, values, keys.get(0).getColumn()).order.clone();
+
+    ranks      = new int[keys.size()][];
+    descending = new boolean[keys.size()];
+    for (i = 0; i < keys.size(); i++) {
+      index         = getIndex(state, values, keys.get(i).getColumn());
+      ranks[i]      = index.rank;
+      descending[i] = (keys.get(i).getSortOrder() == SortOrder.DESCENDING);
+    }
+    result = new int[state.rowCount];
+    for (i = 0; i < result.length; i++)
+      result[i] = i;
+    sortIndices(result, (int row1, int row2) -> {
+      int cmp;
+      for (int n = 0; n < ranks.length; n++) {
+	cmp = Integer.compare(ranks[n][row1], ranks[n][row2]);
+	if (cmp != 0)
+	  return descending[n] ? -cmp : cmp;
+      }
+      return 0;
+    });
+    state.sorted = new SortResult(keys, result.clone());
+
+    return result;
+  }
+
+  /**
+   * Returns the lower case strings for the model column, builds them if
+   * necessary.
+   *
+   * @param state	the cached model data
+   * @param values	the copied cell values of the columns not cached yet
+   * @param column	the model column
+   * @return		the strings
+   */
+  protected String[] getStrings(ModelState state, Map<Integer,Object[]> values, int column) {
+    String[]	result;
+    Object[]	copy;
+    int		row;
+
+    result = state.strings.get(column);
+    if (result != null)
+      return result;
+
+    copy   = values.get(column);
+    result = new String[state.rowCount];
+    if (copy != null) {
+      for (row = 0; row < result.length; row++)
+	result[row] = (copy[row] == null) ? null : copy[row].toString().toLowerCase();
+    }
+    state.strings.put(column, result);
+
+    return result;
+  }
+
+  /**
+   * Checks whether the row matches the filter text.
+   *
+   * @param strings	the lower case strings of the columns to search
+   * @param row		the model row to check
+   * @param text	the lower case filter text
+   * @return		true if at least one column contains the text
+   */
+  protected static boolean matches(String[][] strings, int row, String text) {
+    for (String[] column: strings) {
+      if ((column[row] != null) && column[row].contains(text))
+	return true;
+    }
+    return false;
+  }
+
+  /**
+   * Filters the model rows. If the text extends the text of the previous
+   * filter result (same columns), only the previously matching rows get
+   * checked.
+   *
+   * @param state	the cached model data
+   * @param values	the copied cell values of the columns not cached yet
+   * @param text	the lower case filter text
+   * @param columns	the model columns to search
+   * @return		the matching model rows, ascending
+   */
+  protected int[] filter(ModelState state, Map<Integer,Object[]> values, final String text, int[] columns) {
+    final String[][]	strings;
+    final int[]		candidates;
+    FilterResult	previous;
+    IntStream		stream;
+    int[]		result;
+    int			i;
+
+    strings = new String[columns.length][];
+    for (i = 0; i < columns.length; i++)
+      strings[i] = getStrings(state, values, columns[i]);
+
+    previous = state.filtered;
+    if ((previous != null) && text.startsWith(previous.text) && Arrays.equals(columns, previous.columns))
+      candidates = previous.rows;
+    else
+      candidates = null;
+
+    stream = (candidates == null) ? IntStream.range(0, state.rowCount) : Arrays.stream(candidates);
+    if (((candidates == null) ? state.rowCount : candidates.length) >= PARALLEL_THRESHOLD)
+      stream = stream.parallel();
+    result = stream.filter((int row) -> matches(strings, row, text)).toArray();
+    state.filtered = new FilterResult(text, columns, result);
+
+    return result;
+  }
+
+  /**
+   * Swaps in the new mapping and notifies the listeners.
+   *
+   * @param viewToModel	the view to model mapping, null for identity
+   */
+  protected void apply(int[] viewToModel) {
+    int[]	previous;
+    int[]	modelToView;
+    int		i;
+
+    previous = m_ViewToModel;
+    if ((previous == null) && (viewToModel == null))
+      return;
+    if (previous == null) {
+      previous = new int[m_Model.getRowCount()];
+      for (i = 0; i < previous.length; i++)
+	previous[i] = i;
+    }
+
+    modelToView = null;
+    if (viewToModel != null) {
+      modelToView = new int[m_Model.getRowCount()];
+      Arrays.fill(modelToView, -1);
+      for (i = 0; i < viewToModel.length; i++)
+	modelToView[viewToModel[i]] = i;
+    }
+    m_ViewToModel = viewToModel;
+    m_ModelToView = modelToView;
+    fireRowSorterChanged(previous);
+  }
+
+  /**
+   * Converts the view row into a model row.
+   *
+   * @param index	the view row
+   * @return		the model row
+   */
+  @Override
+  public int convertRowIndexToModel(int index) {
+    if (m_ViewToModel == null) {
+      if ((index < 0) || (index >= getModelRowCount()))
+	throw new IndexOutOfBoundsException("Invalid index: " + index);
+      return index;
+    }
+    return m_ViewToModel[index];
+  }
+
+  /**
+   * Converts the model row into a view row.
+   *
+   * @param index	the model row
+   * @return		the view row, -1 if filtered out
+   */
+  @Override
+  public int convertRowIndexToView(int index) {
+    if (m_ModelToView == null) {
+      if ((index < 0) || (index >= getModelRowCount()))
+	throw new IndexOutOfBoundsException("Invalid index: " + index);
+      return index;
+    }
+    return m_ModelToView[index];
+  }
+
+  /**
+   * Returns the number of rows in the view.
+   *
+   * @return		the number of rows
+   */
+  @Override
+  public int getViewRowCount() {
+    if (m_ViewToModel == null)
+      return getModelRowCount();
+    return m_ViewToModel.length;
+  }
+
+  /**
+   * Returns the number of rows in the model.
+   *
+   * @return		the number of rows
+   */
+  @Override
+  public int getModelRowCount() {
+    return m_Model.getRowCount();
+  }
+
+  /**
+   * Discards the cached model data and sorts/filters again.
+   */
+  protected void modelChanged() {
+    m_State = new ModelState(m_Model.getRowCount());
+    if (!m_SortKeys.isEmpty() || (m_FilterText != null))
+      update();
+  }
+
+  /**
+   * Schedules sorting/filtering, unless already scheduled, to coalesce
+   * consecutive model events. Results of updates still in progress get
+   * discarded.
+   */
+  protected void scheduleUpdate() {
+    final CompletableFuture<int[]>	pending;
+
+    if (m_SortKeys.isEmpty() && (m_FilterText == null))
+      return;
+    m_Generation++;
+    if (m_UpdateScheduled)
+      return;
+
+    m_UpdateScheduled = true;
+    pending           = new CompletableFuture<>();
+    m_Update          = pending;
+    SwingUtilities.invokeLater(() -> {
+      m_UpdateScheduled = false;
+      if (m_Update != pending) {
+	pending.complete(m_ViewToModel);
+	return;
+      }
+      update();
+      getUpdate().whenComplete((int[] mapping, Throwable t) -> {
+	if (t != null)
+	  pending.completeExceptionally(t);
+	else
+	  pending.complete(mapping);
+      });
+    });
+  }
+
+  /**
+   * Returns the rows without the deleted ones, shifting the subsequent ones.
+   *
+   * @param rows	the model rows
+   * @param firstRow	the first deleted model row
+   * @param endRow	the last deleted model row
+   * @return		the updated rows
+   */
+  protected static int[] removeRows(int[] rows, int firstRow, int endRow) {
+    int[]	result;
+    int		count;
+    int		n;
+
+    count  = endRow - firstRow + 1;
+    result = new int[rows.length];
+    n      = 0;
+    for (int row: rows) {
+      if (row < firstRow)
+	result[n++] = row;
+      else if (row > endRow)
+	result[n++] = row - count;
+    }
+
+    return (n == result.length) ? result : Arrays.copyOf(result, n);
+  }
+
+  /**
+   * Patches the cached model data for the inserted rows: the cached strings
+   * get extended and the filter result gets updated (if all its columns are
+   * cached), the sort indices and the sort result get discarded.
+   *
+   * @param firstRow	the first inserted model row
+   * @param endRow	the last inserted model row
+   */
+  protected void patchInserted(int firstRow, int endRow) {
+    ModelState		state;
+    FilterResult	filtered;
+    String[][]		columns;
+    String[]		strings;
+    String[]		previous;
+    Object		value;
+    int[]		rows;
+    int			count;
+    int			row;
+    int			n;
+    int			i;
+
+    count = endRow - firstRow + 1;
+    if ((m_State.rowCount + count != m_Model.getRowCount()) || (firstRow < 0) || (firstRow > m_State.rowCount)) {
+      m_State = new ModelState(m_Model.getRowCount());
+      return;
+    }
+
+    // background tasks may still use the current state, therefore create a new one
+    state = new ModelState(m_State.rowCount + count);
+    for (Map.Entry<Integer,String[]> entry: m_State.strings.entrySet()) {
+      previous = entry.getValue();
+      strings  = new String[state.rowCount];
+      System.arraycopy(previous, 0, strings, 0, firstRow);
+      System.arraycopy(previous, firstRow, strings, endRow + 1, previous.length - firstRow);
+      for (row = firstRow; row <= endRow; row++) {
+	value        = m_Model.getValueAt(row, entry.getKey());
+	strings[row] = (value == null) ? null : value.toString().toLowerCase();
+      }
+      state.strings.put(entry.getKey(), strings);
+    }
+
+    filtered = m_State.filtered;
+    if (filtered != null) {
+      columns = new String[filtered.columns.length][];
+      for (i = 0; i < columns.length; i++)
+	columns[i] = state.strings.get(filtered.columns[i]);
+      if (Arrays.asList(columns).contains(null)) {
+	filtered = null;
+      }
+      else {
+	rows = new int[filtered.rows.length + count];
+	n    = 0;
+	for (int r: filtered.rows) {
+	  if (r < firstRow)
+	    rows[n++] = r;
+	}
+	for (row = firstRow; row <= endRow; row++) {
+	  if (matches(columns, row, filtered.text))
+	    rows[n++] = row;
+	}
+	for (int r: filtered.rows) {
+	  if (r >= firstRow)
+	    rows[n++] = r + count;
+	}
+	filtered = new FilterResult(filtered.text, filtered.columns, Arrays.copyOf(rows, n));
+      }
+    }
+    state.filtered = filtered;
+    m_State        = state;
+  }
+
+  /**
+   * Patches the cached model data for the deleted rows: the cached strings,
+   * the sort indices and the sort/filter results get the rows removed.
+   *
+   * @param firstRow	the first deleted model row
+   * @param endRow	the last deleted model row
+   */
+  protected void patchDeleted(int firstRow, int endRow) {
+    ModelState		state;
+    SortResult		sorted;
+    FilterResult	filtered;
+    ColumnIndex		index;
+    String[]		previous;
+    String[]		strings;
+    int[]		rank;
+    int			count;
+
+    count = endRow - firstRow + 1;
+    if ((m_State.rowCount - count != m_Model.getRowCount()) || (firstRow < 0) || (endRow >= m_State.rowCount)) {
+      m_State = new ModelState(m_Model.getRowCount());
+      return;
+    }
+
+    // background tasks may still use the current state, therefore create a new one
+    state = new ModelState(m_State.rowCount - count);
+    for (Map.Entry<Integer,String[]> entry: m_State.strings.entrySet()) {
+      previous = entry.getValue();
+      strings  = new String[state.rowCount];
+      System.arraycopy(previous, 0, strings, 0, firstRow);
+      System.arraycopy(previous, endRow + 1, strings, firstRow, previous.length - endRow - 1);
+      state.strings.put(entry.getKey(), strings);
+    }
+    // the ranks only get compared, therefore gaps don't matter
+    for (Map.Entry<Integer,ColumnIndex> entry: m_State.indices.entrySet()) {
+      index = entry.getValue();
+      rank  = new int[state.rowCount];
+      System.arraycopy(index.rank, 0, rank, 0, firstRow);
+      System.arraycopy(index.rank, endRow + 1, rank, firstRow, index.rank.length - endRow - 1);
+      state.indices.put(entry.getKey(), new ColumnIndex(removeRows(index.order, firstRow, endRow), rank));
+    }
+    sorted = m_State.sorted;
+    if (sorted != null)
+      state.sorted = new SortResult(sorted.keys, removeRows(sorted.rows, firstRow, endRow));
+    filtered = m_State.filtered;
+    if (filtered != null)
+      state.filtered = new FilterResult(filtered.text, filtered.columns, removeRows(filtered.rows, firstRow, endRow));
+    m_State = state;
+  }
+
+  /**
+   * Gets called when the structure of the model changed, removes the
+   * sort keys and the filter.
+   */
+  @Override
+  public void modelStructureChanged() {
+    m_SortKeys      = Collections.emptyList();
+    m_FilterText    = null;
+    m_FilterColumns = null;
+    m_Generation++;
+    m_Update      = null;
+    m_ViewToModel = null;
+    m_ModelToView = null;
+    m_State       = new ModelState(m_Model.getRowCount());
+    fireSortOrderChanged();
+  }
+
+  /**
+   * Gets called when all rows changed.
+   */
+  @Override
+  public void allRowsChanged() {
+    m_ViewToModel = null;
+    m_ModelToView = null;
+    modelChanged();
+  }
+
+  /**
+   * Gets called when rows were inserted. The rows get appended to the
+   * current view until sorting/filtering has finished.
+   *
+   * @param firstRow	the first inserted model row
+   * @param endRow	the last inserted model row
+   */
+  @Override
+  public void rowsInserted(int firstRow, int endRow) {
+    int[]	previous;
+    int[]	mapping;
+    int		count;
+    int		i;
+
+    count = endRow - firstRow + 1;
+    if (m_ViewToModel != null) {
+      previous = m_ViewToModel;
+      mapping  = Arrays.copyOf(previous, previous.length + count);
+      for (i = 0; i < previous.length; i++) {
+	if (mapping[i] >= firstRow)
+	  mapping[i] += count;
+      }
+      for (i = 0; i < count; i++)
+	mapping[previous.length + i] = firstRow + i;
+      apply(mapping);
+    }
+    patchInserted(firstRow, endRow);
+    scheduleUpdate();
+  }
+
+  /**
+   * Gets called when rows were deleted. The rows get removed from the
+   * current view immediately.
+   *
+   * @param firstRow	the first deleted model row
+   * @param endRow	the last deleted model row
+   */
+  @Override
+  public void rowsDeleted(int firstRow, int endRow) {
+    if (m_ViewToModel != null)
+      apply(removeRows(m_ViewToModel, firstRow, endRow));
+    patchDeleted(firstRow, endRow);
+    scheduleUpdate();
+  }
+
+  /**
+   * Checks whether the column is among the updated ones.
+   *
+   * @param columns	the updated model columns, null for all
+   * @param column	the model column to check
+   * @return		true if updated
+   */
+  protected boolean isUpdated(int[] columns, int column) {
+    if (columns == null)
+      return true;
+    for (int c: columns) {
+      if (c == column)
+	return true;
+    }
+    return false;
+  }
+
+  /**
+   * Updates the cached model data for the updated cells: the cached strings
+   * of the affected rows get patched, the sort indices and sort/filter
+   * results that involve the updated columns get discarded. Only sorts and
+   * filters again if enabled and the columns are used for sorting or
+   * filtering.
+   *
+   * @param firstRow	the first updated model row
+   * @param endRow	the last updated model row
+   * @param columns	the updated model columns, null for all
+   * @see		#setSortsOnUpdates(boolean)
+   */
+  protected void cellsUpdated(int firstRow, int endRow, int[] columns) {
+    ModelState	state;
+    String[]	strings;
+    Object	value;
+    boolean	affected;
+    int		row;
+
+    if ((m_State.rowCount != m_Model.getRowCount()) || (firstRow < 0) || (endRow >= m_State.rowCount) || (firstRow > endRow)) {
+      modelChanged();
+      return;
+    }
+
+    // background tasks may still use the current state, therefore copy it;
+    // the strings get patched in place, as results of tasks working with
+    // outdated strings get discarded or are outdated anyway
+    state = new ModelState(m_State);
+    for (Integer column: state.strings.keySet()) {
+      if (!isUpdated(columns, column))
+	continue;
+      strings = state.strings.get(column);
+      for (row = firstRow; row <= endRow; row++) {
+	value        = m_Model.getValueAt(row, column);
+	strings[row] = (value == null) ? null : value.toString().toLowerCase();
+      }
+    }
+    state.indices.keySet().removeIf((Integer column) -> isUpdated(columns, column));
+    if (state.sorted != null) {
+      for (SortKey key: state.sorted.keys) {
+	if (isUpdated(columns, key.getColumn()))
+	  state.sorted = null;
+      }
+    }
+    if (state.filtered != null) {
+      for (int column: state.filtered.columns) {
+	if (isUpdated(columns, column))
+	  state.filtered = null;
+      }
+    }
+    m_State = state;
+
+    if (!m_SortsOnUpdates)
+      return;
+    affected = false;
+    for (SortKey key: m_SortKeys)
+      affected = affected || isUpdated(columns, key.getColumn());
+    if (m_FilterText != null) {
+      for (int column: getFilterColumns())
+	affected = affected || isUpdated(columns, column);
+    }
+    if (affected)
+      update();
+  }
+
+  /**
+   * Gets called when rows were updated.
+   *
+   * @param firstRow	the first updated model row
+   * @param endRow	the last updated model row
+   * @see		#cellsUpdated(int, int, int[])
+   */
+  @Override
+  public void rowsUpdated(int firstRow, int endRow) {
+    cellsUpdated(firstRow, endRow, null);
+  }
+
+  /**
+   * Gets called when cells were updated.
+   *
+   * @param firstRow	the first updated model row
+   * @param endRow	the last updated model row
+   * @param column	the updated model column
+   * @see		#cellsUpdated(int, int, int[])
+   */
+  @Override
+  public void rowsUpdated(int firstRow, int endRow, int column) {
+    cellsUpdated(firstRow, endRow, new int[]{column});
+  }
+}
@@ -15,7 +15,7 @@
 
 /*
  * JListHelper.java
- * Copyright (C) 2005 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2005-2026 University of Waikato, Hamilton, New Zealand
  *
  */
 
@@ -23,10 +23,13 @@ package nz.ac.waikato.cms.gui.core;
 
 import javax.swing.DefaultListModel;
 import javax.swing.JList;
+import javax.swing.ListModel;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * A helper class for JList GUI elements with DefaultListModel or 
- * derived models.
+ * derived models, or models implementing {@link MutableListModel}.
  *
  * @author  FracPete (fracpete at waikato dot ac dot nz)
  * @version $Revision: 4584 $
@@ -41,6 +44,25 @@ public class JListHelper {
   /** moves items down. */
   public final static int MOVE_DOWN = 1;
   
+  /**
+   * Interface for list models that allow replacing a range of elements,
+   * notifying the listeners with a single event.
+   *
+   * @param <E> the type of elements
+   */
+  public interface MutableListModel<E>
+    extends ListModel<E> {
+
+    /**
+     * Replaces the elements starting at the specified index and fires a
+     * single contentsChanged event for the range.
+     *
+     * @param index	the index of the first element to replace
+     * @param elements	the new elements
+     */
+    public void setRange(int index, List<E> elements);
+  }
+
   /**
    * moves the selected items by a certain amount of items in a given direction.
    *
@@ -51,42 +73,121 @@ public class JListHelper {
    * @see               #MOVE_DOWN
    */
   protected static void moveItems(JList list, int moveby, int direction) {
-    int[]               indices;
-    int                 i;
-    Object              o;
-    DefaultListModel    model;
+    int[]	indices;
+
+    indices = moveItems(list.getModel(), list.getSelectedIndices(), moveby, direction);
+    if (indices != null)
+      list.setSelectedIndices(indices);
+  }
+
+  /**
+   * moves the items by a certain amount of items in a given direction.
+   * All items move by the same amount (limited by the start/end of the
+   * list), the other items in the affected range fill the gaps in their
+   * original order. For a contiguous block this amounts to a rotation of
+   * the affected range. The range gets replaced in one go, i.e., only
+   * the affected range gets touched and {@link MutableListModel}s fire a
+   * single event (DefaultListModel fires one event per changed item).
+   *
+   * @param model       the model to work on, either a DefaultListModel
+   *                    or a {@link MutableListModel}
+   * @param indices     the indices of the items to move (ascending)
+   * @param moveby      the number of items to move by
+   * @param direction   the direction to move in
+   * @return		the new indices of the items, null if unknown direction
+   * @see               #MOVE_UP
+   * @see               #MOVE_DOWN
+   */
+  public static int[] moveItems(ListModel model, int[] indices, int moveby, int direction) {
+    int[]	result;
+    Object[]	range;
+    boolean[]	placed;
+    int		from;
+    int		to;
+    int		i;
+    int		n;
+    int		index;
 
-    model = (DefaultListModel) list.getModel();
+    if (indices.length == 0)
+      return indices;
 
     switch (direction) {
       case MOVE_UP:
-        indices = list.getSelectedIndices();
-        for (i = 0; i < indices.length; i++) {
-          if (indices[i] == 0)
-            continue;
-          o = model.remove(indices[i]);
-          indices[i] -= moveby;
-          model.insertElementAt(o, indices[i]);
-        }
-        list.setSelectedIndices(indices);
+        moveby = Math.min(moveby, indices[0]);
+        from   = indices[0] - moveby;
+        to     = indices[indices.length - 1];
         break;
 
       case MOVE_DOWN:
-        indices = list.getSelectedIndices();
-        for (i = indices.length - 1; i >= 0; i--) {
-          if (indices[i] == model.getSize() - 1)
-            continue;
-          o = model.remove(indices[i]);
-          indices[i] += moveby;
-          model.insertElementAt(o, indices[i]);
-        }
-        list.setSelectedIndices(indices);
+        moveby = Math.min(moveby, model.getSize() - 1 - indices[indices.length - 1]);
+        from   = indices[0];
+        to     = indices[indices.length - 1] + moveby;
         break;
 
       default:
         System.err.println(
             JListHelper.class.getName() + ": direction '" 
             + direction + "' is unknown!");
+        return null;
+    }
+    if (moveby <= 0)
+      return indices;
+
+    // place moved items at their new positions
+    result = new int[indices.length];
+    range  = new Object[to - from + 1];
+    placed = new boolean[range.length];
+    for (i = 0; i < indices.length; i++) {
+      result[i] = indices[i] + ((direction == MOVE_UP) ? -moveby : moveby);
+      range[result[i] - from]  = model.getElementAt(indices[i]);
+      placed[result[i] - from] = true;
+    }
+
+    // fill gaps with other items, keeping their order
+    n = 0;
+    i = 0;
+    for (index = from; index <= to; index++) {
+      if ((i < indices.length) && (indices[i] == index)) {
+        i++;
+        continue;
+      }
+      while (placed[n])
+        n++;
+      range[n] = model.getElementAt(index);
+      n++;
+    }
+
+    setElements(model, from, range);
+
+    return result;
+  }
+
+  /**
+   * Replaces the elements of the model starting at the specified index.
+   *
+   * @param model       the model to update, either a DefaultListModel
+   *                    or a {@link MutableListModel}
+   * @param index       the index of the first element to replace
+   * @param elements    the new elements
+   */
+  @SuppressWarnings("unchecked")
+  protected static void setElements(ListModel model, int index, Object[] elements) {
+    DefaultListModel	defModel;
+    int			i;
+
+    if (model instanceof MutableListModel) {
+      ((MutableListModel) model).setRange(index, Arrays.asList(elements));
+    }
+    else if (model instanceof DefaultListModel) {
+      defModel = (DefaultListModel) model;
+      for (i = 0; i < elements.length; i++) {
+        if (defModel.getElementAt(index + i) != elements[i])
+          defModel.set(index + i, elements[i]);
+      }
+    }
+    else {
+      throw new IllegalArgumentException(
+          "Unsupported list model: " + model.getClass().getName());
     }
   }
 
@@ -15,12 +15,14 @@
 
 /*
  * JTableHelper.java
- * Copyright (C) 2005-2025 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2005-2026 University of Waikato, Hamilton, New Zealand
  * Copyright http://fopps.sourceforge.net/
  */
 
 package nz.ac.waikato.cms.gui.core;
 
+import nz.ac.waikato.cms.core.ThreadUtils;
+
 import javax.swing.JTable;
 import javax.swing.JViewport;
 import javax.swing.SwingUtilities;
@@ -30,10 +32,15 @@ import javax.swing.table.TableColumn;
 import javax.swing.table.TableColumnModel;
 import javax.swing.table.TableModel;
 import java.awt.Component;
+import java.awt.FontMetrics;
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.io.Writer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.IntStream;
 
 /**
  * A helper class for JTable, e.g. calculating the optimal colwidth.
@@ -48,6 +55,100 @@ public class JTableHelper {
   /** the maximum number of rows to use for calculation. */
   public final static int MAX_ROWS = 100;
 
+  /** the client property for storing the column width cache. */
+  public final static String PROPERTY_COLUMN_WIDTH_CACHE = "JTableHelper.ColumnWidthCache";
+
+  /** the client property for storing the sampling strategy. */
+  public final static String PROPERTY_SAMPLING_STRATEGY = "JTableHelper.SamplingStrategy";
+
+  /** the maximum number of threads for estimating column widths. */
+  public final static int MAX_ESTIMATION_THREADS = 4;
+
+  /** the pool for estimating column widths (shared across tables). */
+  protected static ForkJoinPool m_EstimationPool;
+
+  /**
+   * Snapshot of the header widths and sampled cell values of a table, used
+   * for estimating the column widths in the background.
+   */
+  protected static class ColumnSnapshot {
+
+    /** the header widths (-1 if not available). */
+    protected final int[] m_HeaderWidths;
+
+    /** the sampled values per column. */
+    protected final String[][] m_Values;
+
+    /** the font metrics to use. */
+    protected final FontMetrics m_Metrics;
+
+    /**
+     * Takes the snapshot. Must be called from the EDT.
+     *
+     * @param table	the table to take the snapshot from
+     */
+    public ColumnSnapshot(JTable table) {
+      int	cols;
+      int	rowCount;
+      int	dec;
+      int	row;
+      int	col;
+      int	n;
+      Object	value;
+
+      cols           = table.getColumnCount();
+      rowCount       = table.getRowCount();
+      dec            = Math.max(1, (int) Math.ceil((double) rowCount / (double) MAX_ROWS));
+      m_HeaderWidths = new int[cols];
+      m_Values       = new String[cols][];
+      m_Metrics      = table.getFontMetrics(table.getFont());
+      for (col = 0; col < cols; col++) {
+	m_HeaderWidths[col] = calcHeaderWidth(table, col);
+	m_Values[col]       = new String[(rowCount + dec - 1) / dec];
+	n = 0;
+	for (row = rowCount - 1; row >= 0; row -= dec) {
+	  value = table.getValueAt(row, col);
+	  m_Values[col][n++] = (value == null) ? "" : value.toString();
+	}
+      }
+    }
+
+    /**
+     * Estimates the width of the column.
+     *
+     * @param col	the column
+     * @param max       the column width limit, -1 for unlimited
+     * @return		the width, -1 if no header
+     */
+    protected int estimate(int col, int max) {
+      int	result;
+
+      result = m_HeaderWidths[col];
+      if (result == -1)
+	return result;
+      for (String value: m_Values[col]) {
+	if ((max > -1) && (result >= max))
+	  return max;
+	if (value != null)
+	  result = Math.max(result, m_Metrics.stringWidth(value) + TableColumnWidthCache.PADDING);
+      }
+      if ((max > -1) && (result > max))
+	result = max;
+
+      return result;
+    }
+
+    /**
+     * Estimates the widths of all columns in parallel.
+     *
+     * @param max       the column width limit, -1 for unlimited
+     * @return		the widths
+     */
+    public int[] estimate(final int max) {
+      return IntStream.range(0, m_Values.length).parallel().map((int col) -> estimate(col, max)).toArray();
+    }
+  }
+
   /** the table to work with. */
   protected JTable m_Table;
 
@@ -120,12 +221,8 @@ public class JTableHelper {
    * @return         the width, -1 if error
    */
   public static int calcColumnWidthBounded(JTable table, int col, int max) {
-    int 	result;
-    TableModel 	data;
-    int 	rowCount;
-    int		row;
-    int		dec;
-    Component 	c;
+    int 			result;
+    TableColumnWidthCache	cache;
 
     result = calcHeaderWidthBounded(table, col, max);
     if (result == -1)
@@ -137,22 +234,16 @@ public class JTableHelper {
 	return result;
     }
 
-    data     = table.getModel();
-    rowCount = data.getRowCount();
-    dec      = (int) Math.ceil((double) rowCount / (double) MAX_ROWS);
+    cache = getColumnWidthCache(table);
+    if (cache != null) {
+      result = Math.max(result, cache.getCellWidth(col));
+      if ((max > -1) && (result > max))
+	result = max;
+      return result;
+    }
+
     try {
-      for (row = rowCount - 1; row >= 0; row -= dec) {
-        c = table.prepareRenderer(
-            table.getCellRenderer(row, col),
-            row, col);
-        result = Math.max(result, c.getPreferredSize().width + 10);
-	if (max > -1) {
-	  if (result >= max) {
-	    result = max;
-	    break;
-	  }
-	}
-      }
+      result = getSamplingStrategy(table).calcWidth(table, col, result, max);
     }
     catch (Exception e) {
       LOGGER.log(Level.SEVERE, "Failed to calculate column width!", e);
@@ -161,6 +252,199 @@ public class JTableHelper {
     return result;
   }
 
+  /**
+   * Calculates the width of the cell, using the preferred width of the
+   * cell renderer.
+   *
+   * @param table	the table to work on
+   * @param row		the view row
+   * @param col		the view column
+   * @return		the width
+   */
+  public static int calcCellWidth(JTable table, int row, int col) {
+    Component	c;
+
+    c = table.prepareRenderer(table.getCellRenderer(row, col), row, col);
+    return c.getPreferredSize().width + TableColumnWidthCache.PADDING;
+  }
+
+  /**
+   * Sets the strategy for selecting the cells to measure when calculating
+   * the optimal column widths.
+   *
+   * @param value	the strategy, null for the default
+   * @see		ColumnWidthSampling
+   */
+  public void setSamplingStrategy(ColumnWidthSampling value) {
+    setSamplingStrategy(getJTable(), value);
+  }
+
+  /**
+   * Returns the strategy for selecting the cells to measure when
+   * calculating the optimal column widths.
+   *
+   * @return		the strategy
+   */
+  public ColumnWidthSampling getSamplingStrategy() {
+    return getSamplingStrategy(getJTable());
+  }
+
+  /**
+   * Sets the strategy for selecting the cells to measure when calculating
+   * the optimal column widths of the table. Not used if the column width
+   * cache is enabled.
+   *
+   * @param table	the table to work on
+   * @param value	the strategy, null for the default
+   * @see		ColumnWidthSampling
+   */
+  public static void setSamplingStrategy(JTable table, ColumnWidthSampling value) {
+    table.putClientProperty(PROPERTY_SAMPLING_STRATEGY, value);
+  }
+
+  /**
+   * Returns the strategy for selecting the cells to measure when
+   * calculating the optimal column widths of the table.
+   *
+   * @param table	the table to get the strategy for
+   * @return		the strategy, {@link ColumnWidthSampling#STRIDED} if none set
+   */
+  public static ColumnWidthSampling getSamplingStrategy(JTable table) {
+    Object	result;
+
+    result = table.getClientProperty(PROPERTY_SAMPLING_STRATEGY);
+    if (result instanceof ColumnWidthSampling)
+      return (ColumnWidthSampling) result;
+    else
+      return ColumnWidthSampling.STRIDED;
+  }
+
+  /**
+   * Installs an {@link IndexedRowSorter}, which sorts and filters in the
+   * background.
+   *
+   * @return		the sorter
+   * @see		#setIndexedRowSorter(JTable)
+   */
+  public IndexedRowSorter<TableModel> setIndexedRowSorter() {
+    return setIndexedRowSorter(getJTable());
+  }
+
+  /**
+   * Installs an {@link IndexedRowSorter} in the table, which sorts and
+   * filters in the background. Intended for tables with large models,
+   * replaces any existing row sorter.
+   *
+   * @param table	the table to install the sorter in
+   * @return		the sorter
+   */
+  public static IndexedRowSorter<TableModel> setIndexedRowSorter(JTable table) {
+    IndexedRowSorter<TableModel>	result;
+
+    result = new IndexedRowSorter<>(table.getModel());
+    table.setRowSorter(result);
+
+    return result;
+  }
+
+  /**
+   * Returns the {@link IndexedRowSorter} of the table.
+   *
+   * @param table	the table to get the sorter from
+   * @return		the sorter, null if the table uses none
+   */
+  @SuppressWarnings("unchecked")
+  public static IndexedRowSorter<TableModel> getIndexedRowSorter(JTable table) {
+    if (table.getRowSorter() instanceof IndexedRowSorter)
+      return (IndexedRowSorter<TableModel>) table.getRowSorter();
+    else
+      return null;
+  }
+
+  /**
+   * Exports all rows of the table in view order (incl header) in the
+   * background.
+   *
+   * @param writer	the writer to write to, gets closed at the end
+   * @param separator	the separator to use
+   * @return		the future number of rows written
+   * @see		#export(JTable, Writer, char)
+   */
+  public CompletableFuture<Integer> export(Writer writer, char separator) {
+    return export(getJTable(), writer, separator);
+  }
+
+  /**
+   * Exports all rows of the table in view order (incl header) in the
+   * background. Use {@link TableExporter} directly for more options
+   * (model order, selected rows, progress).
+   *
+   * @param table	the table to export
+   * @param writer	the writer to write to, gets closed at the end
+   * @param separator	the separator to use
+   * @return		the future number of rows written
+   * @see		TableExporter#SEPARATOR_CSV
+   * @see		TableExporter#SEPARATOR_TSV
+   */
+  public static CompletableFuture<Integer> export(JTable table, Writer writer, char separator) {
+    TableExporter	exporter;
+
+    exporter = new TableExporter(table);
+    exporter.setSeparator(separator);
+
+    return exporter.export(writer);
+  }
+
+  /**
+   * Sets whether to cache the measured cell widths, so that calculating the
+   * optimal column widths again only measures rows that were inserted or
+   * updated in the meantime.
+   *
+   * @param value	true if to cache
+   * @see		TableColumnWidthCache
+   */
+  public void setColumnWidthCacheEnabled(boolean value) {
+    setColumnWidthCacheEnabled(getJTable(), value);
+  }
+
+  /**
+   * Sets whether to cache the measured cell widths of the table, so that
+   * calculating the optimal column widths again only measures rows that
+   * were inserted or updated in the meantime.
+   *
+   * @param table	the table to work on
+   * @param value	true if to cache
+   * @see		TableColumnWidthCache
+   */
+  public static void setColumnWidthCacheEnabled(JTable table, boolean value) {
+    TableColumnWidthCache	cache;
+
+    cache = getColumnWidthCache(table);
+    if (value && (cache == null)) {
+      table.putClientProperty(PROPERTY_COLUMN_WIDTH_CACHE, new TableColumnWidthCache(table));
+    }
+    else if (!value && (cache != null)) {
+      cache.detach();
+      table.putClientProperty(PROPERTY_COLUMN_WIDTH_CACHE, null);
+    }
+  }
+
+  /**
+   * Returns the cache for the measured cell widths of the table.
+   *
+   * @param table	the table to get the cache for
+   * @return		the cache, null if not enabled
+   */
+  public static TableColumnWidthCache getColumnWidthCache(JTable table) {
+    Object	result;
+
+    result = table.getClientProperty(PROPERTY_COLUMN_WIDTH_CACHE);
+    if (result instanceof TableColumnWidthCache)
+      return (TableColumnWidthCache) result;
+    else
+      return null;
+  }
+
   /**
    * calcs the optimal header width of the given column.
    *
@@ -321,10 +605,131 @@ public class JTableHelper {
    * @param max         the column width limit, -1 for unlimited
    */
   public static void setOptimalColumnWidthBounded(JTable table, int max) {
+    setPreferredColumnWidths(table, calcColumnWidthsBounded(table, max));
+  }
+
+  /**
+   * Calculates the optimal widths for all columns of the given table.
+   *
+   * @param table	the table to work on
+   * @param max         the column width limit, -1 for unlimited
+   * @return		the widths (-1 if error)
+   */
+  public static int[] calcColumnWidthsBounded(JTable table, int max) {
+    int[]	result;
     int		i;
 
-    for (i = 0; i < table.getColumnModel().getColumnCount(); i++)
-      setOptimalColumnWidthBounded(table, i, max);
+    result = new int[table.getColumnModel().getColumnCount()];
+    for (i = 0; i < result.length; i++)
+      result[i] = calcColumnWidthBounded(table, i, max);
+
+    return result;
+  }
+
+  /**
+   * Calculates the optimal header widths for all columns of the given table.
+   *
+   * @param table	the table to work on
+   * @param max         the column width limit, -1 for unlimited
+   * @return		the widths (-1 if error)
+   */
+  public static int[] calcHeaderWidthsBounded(JTable table, int max) {
+    int[]	result;
+    int		i;
+
+    result = new int[table.getColumnModel().getColumnCount()];
+    for (i = 0; i < result.length; i++)
+      result[i] = calcHeaderWidthBounded(table, i, max);
+
+    return result;
+  }
+
+  /**
+   * Sets the preferred widths of all columns in a single EDT task, laying
+   * out the table only once.
+   *
+   * @param table	the table to update
+   * @param widths	the widths per column, negative widths get ignored
+   */
+  public static void setPreferredColumnWidths(final JTable table, final int[] widths) {
+    SwingUtilities.invokeLater(() -> applyColumnWidths(table, widths));
+  }
+
+  /**
+   * Returns the pool for estimating column widths in the background.
+   *
+   * @return		the pool
+   */
+  protected static synchronized ForkJoinPool getEstimationPool() {
+    if (m_EstimationPool == null)
+      m_EstimationPool = new ForkJoinPool(ThreadUtils.getNumThreads(MAX_ESTIMATION_THREADS));
+    return m_EstimationPool;
+  }
+
+  /**
+   * Estimates the optimal widths for all columns in the background and
+   * sets them.
+   *
+   * @param max         the column width limit, -1 for unlimited
+   * @return		the future estimated widths
+   * @see		#estimateOptimalColumnWidthBounded(JTable, int)
+   */
+  public CompletableFuture<int[]> estimateOptimalColumnWidthBounded(int max) {
+    return estimateOptimalColumnWidthBounded(getJTable(), max);
+  }
+
+  /**
+   * Estimates the optimal widths for all columns of the given table in the
+   * background and sets them. Rather than using the cell renderers (which
+   * requires the EDT), the string widths of a snapshot of the sampled cell
+   * values get computed using the {@link FontMetrics} of the table, with
+   * the columns processed in parallel. The widths are applied in a single
+   * EDT task.
+   * <br>
+   * The snapshot gets taken on the EDT; if not called from the EDT, taking
+   * the snapshot gets scheduled on the EDT.
+   *
+   * @param table	the table to work on
+   * @param max         the column width limit, -1 for unlimited
+   * @return		the future estimated widths (-1 if failed to estimate)
+   */
+  public static CompletableFuture<int[]> estimateOptimalColumnWidthBounded(final JTable table, final int max) {
+    CompletableFuture<ColumnSnapshot>	snapshot;
+
+    if (SwingUtilities.isEventDispatchThread())
+      snapshot = CompletableFuture.completedFuture(new ColumnSnapshot(table));
+    else
+      snapshot = CompletableFuture.supplyAsync(() -> new ColumnSnapshot(table), SwingUtilities::invokeLater);
+
+    return snapshot
+      .thenApplyAsync((ColumnSnapshot s) -> s.estimate(max), getEstimationPool())
+      .thenApplyAsync((int[] widths) -> {
+	applyColumnWidths(table, widths);
+	return widths;
+      }, SwingUtilities::invokeLater);
+  }
+
+  /**
+   * Sets the preferred widths of the columns and updates the layout once.
+   * Must be called from the EDT.
+   *
+   * @param table	the table to update
+   * @param widths	the widths per column, negative widths get ignored
+   */
+  protected static void applyColumnWidths(JTable table, int[] widths) {
+    TableColumnModel	columns;
+    JTableHeader	header;
+    int			i;
+
+    columns = table.getColumnModel();
+    for (i = 0; (i < widths.length) && (i < columns.getColumnCount()); i++) {
+      if (widths[i] >= 0)
+	columns.getColumn(i).setPreferredWidth(widths[i]);
+    }
+    table.doLayout();
+    header = table.getTableHeader();
+    if (header != null)
+      header.repaint();
   }
 
   /**
@@ -394,10 +799,7 @@ public class JTableHelper {
    * @param table	the table to work with
    */
   public static void setOptimalHeaderWidth(JTable table) {
-    int		i;
-
-    for (i = 0; i < table.getColumnModel().getColumnCount(); i++)
-      setOptimalHeaderWidth(table, i);
+    setPreferredColumnWidths(table, calcHeaderWidthsBounded(table, -1));
   }
 
   /**
@@ -15,28 +15,33 @@
 
 /*
  * MultiPagePane.java
- * Copyright (C) 2018-2025 University of Waikato, Hamilton, NZ
+ * Copyright (C) 2018-2026 University of Waikato, Hamilton, NZ
  */
 
 package nz.ac.waikato.cms.gui.core;
 
 import com.googlecode.jfilechooserbookmarks.event.RemoveItemsListener;
 import com.googlecode.jfilechooserbookmarks.gui.BaseList;
+import nz.ac.waikato.cms.core.PropsUtils;
+import nz.ac.waikato.cms.core.ThreadUtils;
 
 import javax.swing.Action;
 import javax.swing.BorderFactory;
 import javax.swing.DefaultListCellRenderer;
-import javax.swing.DefaultListModel;
 import javax.swing.ImageIcon;
 import javax.swing.JLabel;
 import javax.swing.JList;
 import javax.swing.JMenuItem;
 import javax.swing.JPopupMenu;
+import javax.swing.JProgressBar;
 import javax.swing.JScrollPane;
 import javax.swing.JSplitPane;
 import javax.swing.KeyStroke;
 import javax.swing.ListCellRenderer;
 import javax.swing.ListSelectionModel;
+import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.border.Border;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
@@ -52,9 +57,20 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionAdapter;
 import java.io.Serializable;
+import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Manages multiple pages, like JTabbedPane manages multiple tabs.
@@ -116,6 +132,24 @@ public class MultiPagePane
     /** the current icon (can be null). */
     protected ImageIcon m_Icon;
 
+    /** the background load of the page (null if none). */
+    protected transient Future<?> m_Loader;
+
+    /** the loader used by the background load (null if none). */
+    protected transient PageLoader m_PageLoader;
+
+    /** whether loading of the page got cancelled. */
+    protected transient boolean m_LoadingCancelled;
+
+    /** for creating the page on demand (null if already created). */
+    protected transient PageLoader m_PendingPage;
+
+    /** the identifier of the factory that can recreate the page (can be null). */
+    protected String m_FactoryID;
+
+    /** the parameters for the factory (can be null). */
+    protected String m_FactoryParams;
+
     /**
      * Initializes the container with no icon.
      *
@@ -138,7 +172,6 @@ public class MultiPagePane
       m_Title = title;
       m_Page  = page;
       m_Icon  = icon;
-      m_DetachablePage = new DetachablePage(page);
     }
 
     /**
@@ -175,6 +208,8 @@ public class MultiPagePane
      */
     public void setPage(Component value) {
       m_Page = value;
+      if (m_DetachablePage == null)
+        return;
       m_DetachablePage.getContentPanel().removeAll();
       m_DetachablePage.getContentPanel().add(value, BorderLayout.CENTER);
       m_DetachablePage.getContentPanel().invalidate();
@@ -183,14 +218,25 @@ public class MultiPagePane
     }
 
     /**
-     * Returns the detachable page.
+     * Returns the detachable page. Gets created on first access.
      *
      * @return		the page
      */
     public DetachablePage getDetachablePage() {
+      if (m_DetachablePage == null)
+        m_DetachablePage = new DetachablePage(m_Page);
       return m_DetachablePage;
     }
 
+    /**
+     * Returns whether the page is currently detached.
+     *
+     * @return		true if detached
+     */
+    public boolean isDetached() {
+      return (m_DetachablePage != null) && m_DetachablePage.isDetached();
+    }
+
     /**
      * Just returns the title.
      *
@@ -217,6 +263,164 @@ public class MultiPagePane
     public void setIcon(ImageIcon value) {
       m_Icon = value;
     }
+
+    /**
+     * Sets the background load of the page.
+     *
+     * @param value	the load, null if finished
+     */
+    protected void setLoader(Future<?> value) {
+      m_Loader = value;
+    }
+
+    /**
+     * Sets the loader that is used by the background load of the page.
+     *
+     * @param value	the loader, null if finished
+     */
+    protected void setPageLoader(PageLoader value) {
+      m_PageLoader = value;
+    }
+
+    /**
+     * Returns the loader that is used by the background load of the page.
+     *
+     * @return		the loader, null if not loading
+     */
+    public PageLoader getPageLoader() {
+      return m_PageLoader;
+    }
+
+    /**
+     * Returns whether the page is still being loaded in the background.
+     *
+     * @return		true if still loading
+     */
+    public boolean isLoading() {
+      return (m_Loader != null);
+    }
+
+    /**
+     * Returns whether loading of the page got cancelled.
+     *
+     * @return		true if cancelled
+     */
+    public boolean isLoadingCancelled() {
+      return m_LoadingCancelled;
+    }
+
+    /**
+     * Cancels the background load of the page, if still running.
+     */
+    public void cancelLoading() {
+      if (m_Loader == null)
+        return;
+      m_LoadingCancelled = true;
+      m_Loader.cancel(true);
+      m_Loader = null;
+    }
+
+    /**
+     * Sets the loader for creating the actual page on demand, e.g., when
+     * the page gets selected for the first time.
+     *
+     * @param value	the loader, null if page already created
+     */
+    public void setPendingPage(PageLoader value) {
+      m_PendingPage = value;
+    }
+
+    /**
+     * Returns the loader for creating the actual page on demand.
+     *
+     * @return		the loader, null if page already created
+     */
+    public PageLoader getPendingPage() {
+      return m_PendingPage;
+    }
+
+    /**
+     * Returns whether the actual page still needs to be created.
+     *
+     * @return		true if still pending
+     */
+    public boolean isPending() {
+      return (m_PendingPage != null);
+    }
+
+    /**
+     * Sets the identifier of the factory that can recreate the page
+     * when restoring a snapshot.
+     *
+     * @param value	the identifier, null if cannot be recreated
+     * @see		MultiPagePane#registerPageFactory(String, PageFactory)
+     */
+    public void setFactoryID(String value) {
+      m_FactoryID = value;
+    }
+
+    /**
+     * Returns the identifier of the factory that can recreate the page.
+     *
+     * @return		the identifier, null if cannot be recreated
+     */
+    public String getFactoryID() {
+      return m_FactoryID;
+    }
+
+    /**
+     * Sets the parameters that the factory uses for recreating the page.
+     *
+     * @param value	the parameters, can be null
+     */
+    public void setFactoryParams(String value) {
+      m_FactoryParams = value;
+    }
+
+    /**
+     * Returns the parameters that the factory uses for recreating the page.
+     *
+     * @return		the parameters, can be null
+     */
+    public String getFactoryParams() {
+      return m_FactoryParams;
+    }
+  }
+
+  /**
+   * Interface for classes that create the page component in the background.
+   *
+   * @author  fracpete (fracpete at waikato dot ac dot nz)
+   */
+  public interface PageLoader {
+
+    /**
+     * Creates the page. Gets called from a background thread, therefore
+     * should only load data and construct (not display) components.
+     *
+     * @return		the page component
+     * @throws Exception	if loading fails
+     */
+    public Component loadPage() throws Exception;
+  }
+
+  /**
+   * Interface for factories that recreate pages when restoring a snapshot.
+   *
+   * @author  fracpete (fracpete at waikato dot ac dot nz)
+   * @see	#restoreSnapshot(Properties)
+   */
+  public interface PageFactory {
+
+    /**
+     * Creates the page.
+     *
+     * @param title	the title of the page
+     * @param params	the parameters stored with the page, can be null
+     * @return		the page component
+     * @throws Exception	if creation fails
+     */
+    public Component createPage(String title, String params) throws Exception;
   }
 
   /**
@@ -237,6 +441,28 @@ public class MultiPagePane
     public boolean approvePageClosing(MultiPagePane source, int index);
   }
 
+  /**
+   * Interface for classes that can hook into the closing of pages and stop
+   * it, performing the (potentially expensive) checks asynchronously.
+   * The approvals of multiple pages get evaluated concurrently.
+   *
+   * @author  fracpete (fracpete at waikato dot ac dot nz)
+   */
+  public interface AsyncPageCloseApprover {
+
+    /**
+     * Method gets called when having to approve a close operation of
+     * multiple pages. Gets called in the EDT, the returned future should
+     * perform any expensive work using the supplied executor.
+     *
+     * @param source 	the origin of the closing operation
+     * @param index	the page that is to be closed
+     * @param executor	the executor to use for background work
+     * @return 		the future that completes with true if approved
+     */
+    public CompletableFuture<Boolean> approvePageClosing(MultiPagePane source, int index, Executor executor);
+  }
+
   /**
    * Interface for classes that want to customize the popup menu for entry.
    *
@@ -364,6 +590,18 @@ public class MultiPagePane
 
     /** whether the tab was selected. */
     public boolean selected;
+
+    /** the loader for recreating a page that was still loading or pending (null if none). */
+    public PageLoader loader;
+
+    /** whether the page was still pending, i.e., gets created on demand. */
+    public boolean pending;
+
+    /** the identifier of the factory (can be null). */
+    public String factoryID;
+
+    /** the parameters for the factory (can be null). */
+    public String factoryParams;
   }
 
   /** the split pane. */
@@ -376,7 +614,7 @@ public class MultiPagePane
   protected BaseList m_PageList;
 
   /** the list model. */
-  protected DefaultListModel<PageContainer> m_PageListModel;
+  protected ArrayListModel<PageContainer> m_PageListModel;
 
   /** the panel for the list buttons. */
   protected BasePanel m_PanelListButtons;
@@ -399,6 +637,9 @@ public class MultiPagePane
   /** the action button. */
   protected BaseSplitButton m_ButtonAction;
 
+  /** the progress bar for evaluating the approval of closing pages. */
+  protected JProgressBar m_ProgressClosing;
+
   /** the content pane for the pages. */
   protected BasePanel m_PanelContent;
 
@@ -408,9 +649,24 @@ public class MultiPagePane
   /** whether to ignore updates. */
   protected boolean m_IgnoreUpdates;
 
+  /** whether an update pass has been scheduled already. */
+  protected boolean m_UpdateScheduled;
+
+  /** the page currently displayed in the content panel. */
+  protected Component m_DisplayedPage;
+
   /** for approving page closing. */
   protected PageCloseApprover m_PageCloseApprover;
 
+  /** for approving page closing asynchronously. */
+  protected AsyncPageCloseApprover m_AsyncPageCloseApprover;
+
+  /** whether the approval of closing pages is currently being evaluated. */
+  protected boolean m_ClosingApprovalInProgress;
+
+  /** the timeout in msec for page close approvals (&lt;1 for no timeout). */
+  protected int m_PageCloseApprovalTimeout;
+
   /** an optional customizer for the popup on the JList. */
   protected PopupCustomizer m_PopupCustomizer;
 
@@ -429,6 +685,57 @@ public class MultiPagePane
   /** whether to skip tab undo. */
   protected boolean m_SkipPageUndo;
 
+  /** the maximum number of pages to load in parallel. */
+  public final static int MAX_PAGE_LOADERS = 4;
+
+  /** the executor for loading pages in the background (shared across panes). */
+  protected static ExecutorService m_PageLoaderExecutor;
+
+  /** the number of page close approvals to evaluate in parallel (typically I/O bound, hence not tied to the CPUs). */
+  public final static int MAX_PAGE_CLOSE_APPROVERS = 8;
+
+  /** the executor for evaluating page close approvals (shared across panes). */
+  protected static ExecutorService m_PageCloseExecutor;
+
+  /** the default timeout in msec for page close approvals. */
+  public final static int DEFAULT_PAGE_CLOSE_APPROVAL_TIMEOUT = 60000;
+
+  /** the version of the snapshot format. */
+  public final static int SNAPSHOT_VERSION = 1;
+
+  /** the snapshot key for the version. */
+  public final static String SNAPSHOT_KEY_VERSION = "version";
+
+  /** the snapshot key for the divider location. */
+  public final static String SNAPSHOT_KEY_DIVIDER = "divider";
+
+  /** the snapshot key for the number of pages. */
+  public final static String SNAPSHOT_KEY_COUNT = "count";
+
+  /** the snapshot key for the selected indices (comma-separated). */
+  public final static String SNAPSHOT_KEY_SELECTED = "selected";
+
+  /** the snapshot key prefix for the pages. */
+  public final static String SNAPSHOT_KEY_PAGE = "page.";
+
+  /** the snapshot key suffix for the page title. */
+  public final static String SNAPSHOT_SUFFIX_TITLE = ".title";
+
+  /** the snapshot key suffix for the page factory. */
+  public final static String SNAPSHOT_SUFFIX_FACTORY = ".factory";
+
+  /** the snapshot key suffix for the page factory parameters. */
+  public final static String SNAPSHOT_SUFFIX_PARAMS = ".params";
+
+  /** the snapshot key suffix for the page icon. */
+  public final static String SNAPSHOT_SUFFIX_ICON = ".icon";
+
+  /** the snapshot key suffix for the detached state. */
+  public final static String SNAPSHOT_SUFFIX_DETACHED = ".detached";
+
+  /** the registered page factories. */
+  protected Map<String,PageFactory> m_PageFactories;
+
   /**
    * For initializing members.
    */
@@ -436,15 +743,21 @@ public class MultiPagePane
   protected void initialize() {
     super.initialize();
 
-    m_PageListModel     = new DefaultListModel<>();
+    m_PageListModel     = new ArrayListModel<>();
     m_ChangeListeners   = new HashSet<>();
     m_IgnoreUpdates     = false;
+    m_UpdateScheduled   = false;
+    m_DisplayedPage     = null;
     m_PageCloseApprover = null;
+    m_AsyncPageCloseApprover    = null;
+    m_ClosingApprovalInProgress = false;
+    m_PageCloseApprovalTimeout  = DEFAULT_PAGE_CLOSE_APPROVAL_TIMEOUT;
     m_PopupCustomizer   = null;
     m_ToolTipCustomizer = null;
     m_ReadOnly          = false;
     m_MaxPageCloseUndo  = 0;
     m_PageUndoList      = null;
+    m_PageFactories     = new HashMap<>();
   }
 
   /**
@@ -536,6 +849,11 @@ public class MultiPagePane
     m_ButtonAction.setVisible(false);
     m_PanelListButtons.add(m_ButtonAction);
 
+    m_ProgressClosing = new JProgressBar();
+    m_ProgressClosing.setStringPainted(true);
+    m_ProgressClosing.setVisible(false);
+    m_PanelListButtons.add(m_ProgressClosing);
+
     m_PanelContent = new BasePanel(new BorderLayout());
     m_SplitPane.setRightComponent(m_PanelContent);
   }
@@ -917,6 +1235,174 @@ public class MultiPagePane
     return result;
   }
 
+  /**
+   * Returns the executor for evaluating page close approvals.
+   *
+   * @return		the executor
+   */
+  protected static synchronized ExecutorService getPageCloseExecutor() {
+    if (m_PageCloseExecutor == null)
+      m_PageCloseExecutor = ThreadUtils.newExecutor("MultiPagePane-close", MAX_PAGE_CLOSE_APPROVERS);
+    return m_PageCloseExecutor;
+  }
+
+  /**
+   * Returns whether the approval of closing pages is currently being
+   * evaluated asynchronously.
+   *
+   * @return		true if in progress
+   */
+  public boolean isClosingApprovalInProgress() {
+    return m_ClosingApprovalInProgress;
+  }
+
+  /**
+   * Sets the timeout for the asynchronous approval of closing pages.
+   * Approvals that are not available after the timeout count as rejected.
+   *
+   * @param value	the timeout in msec, &lt;1 for no timeout
+   */
+  public void setPageCloseApprovalTimeout(int value) {
+    m_PageCloseApprovalTimeout = value;
+  }
+
+  /**
+   * Returns the timeout for the asynchronous approval of closing pages.
+   *
+   * @return		the timeout in msec, &lt;1 for no timeout
+   */
+  public int getPageCloseApprovalTimeout() {
+    return m_PageCloseApprovalTimeout;
+  }
+
+  /**
+   * Evaluates the approval of closing the specified pages concurrently,
+   * using the asynchronous approver. Once all approvals are in, the
+   * approved pages get removed in a single bulk operation. Approvals that
+   * time out count as rejected.
+   *
+   * @param indices	the page indices
+   * @param skipUndo	whether to skip storing the pages in undo
+   * @see		#getAsyncPageCloseApprover()
+   */
+  protected void checkedRemovePagesAsync(int[] indices, boolean skipUndo) {
+    final PageContainer[]			conts;
+    final List<CompletableFuture<Boolean>>	approvals;
+    final AtomicInteger				completed;
+    final List<CompletableFuture<Boolean>>	pending;
+    final Timer					timeout;
+    CompletableFuture<Boolean>			approval;
+    CompletableFuture<Boolean>			wrapped;
+    int						i;
+
+    if ((indices.length == 0) || m_ClosingApprovalInProgress)
+      return;
+
+    m_ClosingApprovalInProgress = true;
+    m_ProgressClosing.setMinimum(0);
+    m_ProgressClosing.setMaximum(indices.length);
+    m_ProgressClosing.setValue(0);
+    m_ProgressClosing.setString("0/" + indices.length);
+    m_ProgressClosing.setVisible(true);
+    updateButtons();
+
+    conts     = new PageContainer[indices.length];
+    approvals = new ArrayList<>();
+    pending   = new ArrayList<>();
+    completed = new AtomicInteger();
+    for (i = 0; i < indices.length; i++) {
+      conts[i] = getPageContainerAt(indices[i]);
+      try {
+	approval = m_AsyncPageCloseApprover.approvePageClosing(this, indices[i], getPageCloseExecutor());
+	if (approval == null)
+	  approval = CompletableFuture.completedFuture(false);
+      }
+      catch (Exception e) {
+	approval = CompletableFuture.completedFuture(false);
+      }
+      // wrap the approval, so the timeout doesn't complete the approver's future
+      wrapped = new CompletableFuture<>();
+      final CompletableFuture<Boolean> fWrapped = wrapped;
+      approval.whenComplete((Boolean b, Throwable t) -> {
+	if (t != null)
+	  fWrapped.completeExceptionally(t);
+	else
+	  fWrapped.complete(b);
+      });
+      pending.add(wrapped);
+      approval = wrapped
+	.exceptionally((Throwable t) -> false)
+	.whenComplete((Boolean b, Throwable t) -> {
+	  final int count = completed.incrementAndGet();
+	  SwingUtilities.invokeLater(() -> {
+	    m_ProgressClosing.setValue(count);
+	    m_ProgressClosing.setString(count + "/" + conts.length);
+	  });
+	});
+      approvals.add(approval);
+    }
+
+    if (m_PageCloseApprovalTimeout > 0) {
+      timeout = new Timer(m_PageCloseApprovalTimeout, (ActionEvent e) -> {
+	for (CompletableFuture<Boolean> p: pending)
+	  p.completeExceptionally(new TimeoutException("Page close approval timed out"));
+      });
+      timeout.setRepeats(false);
+      timeout.start();
+    }
+    else {
+      timeout = null;
+    }
+
+    CompletableFuture.allOf(approvals.toArray(new CompletableFuture<?>[0])).whenComplete(
+      (Void v, Throwable t) -> SwingUtilities.invokeLater(() -> {
+	if (timeout != null)
+	  timeout.stop();
+	finishRemovePagesAsync(conts, approvals, skipUndo);
+      }));
+  }
+
+  /**
+   * Gets called in the EDT once all asynchronous approvals are available.
+   * Removes the approved pages that are still present.
+   *
+   * @param conts	the containers that were to be closed
+   * @param approvals	the (completed) approvals
+   * @param skipUndo	whether to skip storing the pages in undo
+   */
+  protected void finishRemovePagesAsync(PageContainer[] conts, List<CompletableFuture<Boolean>> approvals, boolean skipUndo) {
+    List<Integer>	approved;
+    int[]		indices;
+    int			index;
+    int			i;
+
+    approved = new ArrayList<>();
+    for (i = 0; i < conts.length; i++) {
+      if (!Boolean.TRUE.equals(approvals.get(i).getNow(false)))
+	continue;
+      index = indexOfPage(conts[i]);
+      if (index > -1)
+	approved.add(index);
+    }
+    indices = new int[approved.size()];
+    for (i = 0; i < indices.length; i++)
+      indices[i] = approved.get(i);
+
+    m_ClosingApprovalInProgress = false;
+    m_ProgressClosing.setVisible(false);
+
+    m_SkipPageUndo = skipUndo;
+    try {
+      removePages(indices);
+    }
+    finally {
+      m_SkipPageUndo = false;
+    }
+
+    // re-enable the actions, even if no page was approved
+    updateButtons();
+  }
+
   /**
    * Removes the currently selected page container, if approved.
    *
@@ -949,7 +1435,9 @@ public class MultiPagePane
   public void checkedRemoveSelectedPages() {
     if (getSelectedIndex() == -1)
       return;
-    if (isPageClosingApproved(getSelectedIndices()))
+    if (m_AsyncPageCloseApprover != null)
+      checkedRemovePagesAsync(getSelectedIndices(), false);
+    else if (isPageClosingApproved(getSelectedIndices()))
       removeSelectedPages();
   }
 
@@ -957,12 +1445,27 @@ public class MultiPagePane
    * Removes the currently selected page containers.
    */
   public void removeSelectedPages() {
-    int[]	indices;
+    removePages(getSelectedIndices());
+  }
+
+  /**
+   * Removes the specified page containers in a single bulk operation.
+   *
+   * @param indices	the page indices
+   */
+  public void removePages(int[] indices) {
     int		i;
 
-    indices = getSelectedIndices();
+    if (indices.length == 0)
+      return;
+
+    indices = indices.clone();
+    Arrays.sort(indices);
+    m_IgnoreUpdates = true;
     for (i = indices.length - 1; i >= 0; i--)
       removePageAt(indices[i]);
+    m_IgnoreUpdates = false;
+    update();
   }
 
   /**
@@ -990,9 +1493,10 @@ public class MultiPagePane
 
     addPageUndo(index);
     result = m_PageListModel.remove(index);
+    result.cancelLoading();
 
     // detached?
-    if (result.getDetachablePage().isDetached())
+    if (result.isDetached())
       result.getDetachablePage().reattach();
 
     if (index < getPageCount())
@@ -1008,6 +1512,16 @@ public class MultiPagePane
    */
   public void checkedRemoveAllPages() {
     PageContainer	removed;
+    int[]		indices;
+    int			i;
+
+    if (m_AsyncPageCloseApprover != null) {
+      indices = new int[getPageCount()];
+      for (i = 0; i < indices.length; i++)
+	indices[i] = i;
+      checkedRemovePagesAsync(indices, true);
+      return;
+    }
 
     m_IgnoreUpdates = true;
     m_SkipPageUndo  = true;
@@ -1081,32 +1595,421 @@ public class MultiPagePane
     setSelectedIndex(index);
   }
 
+  /**
+   * Returns the executor for loading pages in the background.
+   *
+   * @return		the executor
+   */
+  protected static synchronized ExecutorService getPageLoaderExecutor() {
+    if (m_PageLoaderExecutor == null)
+      m_PageLoaderExecutor = ThreadUtils.newExecutor("MultiPagePane-loader", ThreadUtils.getNumThreads(MAX_PAGE_LOADERS));
+    return m_PageLoaderExecutor;
+  }
+
+  /**
+   * Creates the lightweight component that is displayed while the page
+   * is being loaded.
+   *
+   * @param title	the title of the page
+   * @return		the placeholder
+   */
+  protected Component newLoadingPlaceholder(String title) {
+    return new JLabel("Loading...", SwingConstants.CENTER);
+  }
+
+  /**
+   * Creates the component that is displayed if loading of the page failed.
+   *
+   * @param title	the title of the page
+   * @param error	the error that occurred
+   * @return		the component
+   */
+  protected Component newLoadingFailedPlaceholder(String title, Throwable error) {
+    return new JLabel("Failed to load page '" + title + "': " + error, SwingConstants.CENTER);
+  }
+
+  /**
+   * Adds the page at the end, using the loader to create the actual page
+   * component in the background. Until loading has finished, a placeholder
+   * is displayed. Removing the page cancels the loading.
+   *
+   * @param title	the title
+   * @param loader	for creating the page component
+   * @return		the container of the page
+   */
+  public PageContainer addPage(String title, PageLoader loader) {
+    return addPage(getPageCount(), title, loader);
+  }
+
+  /**
+   * Adds the page at the specified index, using the loader to create the
+   * actual page component in the background. Until loading has finished, a
+   * placeholder is displayed. Removing the page cancels the loading.
+   *
+   * @param index	the page index to insert the page at
+   * @param title	the title
+   * @param loader	for creating the page component
+   * @return		the container of the page
+   */
+  public PageContainer addPage(int index, String title, PageLoader loader) {
+    final PageContainer	result;
+
+    result = new PageContainer(title, newLoadingPlaceholder(title));
+    result.setPageLoader(loader);
+    result.setLoader(getPageLoaderExecutor().submit(() -> {
+      Component page;
+      Throwable error;
+      page  = null;
+      error = null;
+      try {
+        page = loader.loadPage();
+      }
+      catch (Throwable t) {
+        error = t;
+      }
+      if (Thread.currentThread().isInterrupted())
+        return;
+      final Component fPage  = page;
+      final Throwable fError = error;
+      SwingUtilities.invokeLater(() -> pageLoaded(result, fPage, fError));
+    }));
+    addPage(index, result);
+
+    return result;
+  }
+
+  /**
+   * Gets called in the EDT when a page finished loading in the background.
+   * Swaps in the loaded page (or an error placeholder), unless the page
+   * has been removed in the meantime.
+   *
+   * @param cont	the container of the page
+   * @param page	the loaded page, null if failed
+   * @param error	the error, null if successful
+   */
+  protected void pageLoaded(PageContainer cont, Component page, Throwable error) {
+    int		index;
+
+    if (cont.isLoadingCancelled())
+      return;
+    cont.setLoader(null);
+    cont.setPageLoader(null);
+    index = indexOfPage(cont);
+    if (index == -1)
+      return;
+    if (page == null)
+      page = newLoadingFailedPlaceholder(cont.getTitle(), (error == null) ? new IllegalStateException("No page created") : error);
+    setPageAt(index, page);
+  }
+
+  /**
+   * Creates the actual page of a container that is still pending, i.e.,
+   * was restored from a snapshot and not displayed yet.
+   *
+   * @param cont	the container to create the page for
+   */
+  protected void createPendingPage(PageContainer cont) {
+    PageLoader	loader;
+    Component	page;
+
+    loader = cont.getPendingPage();
+    if (loader == null)
+      return;
+    cont.setPendingPage(null);
+    try {
+      page = loader.loadPage();
+      if (page == null)
+	throw new IllegalStateException("No page created");
+    }
+    catch (Exception e) {
+      page = newLoadingFailedPlaceholder(cont.getTitle(), e);
+    }
+    cont.setPage(page);
+  }
+
+  /**
+   * Registers the factory for recreating pages from snapshots.
+   *
+   * @param id		the identifier of the factory
+   * @param factory	the factory, null to unregister
+   * @see		PageContainer#setFactoryID(String)
+   */
+  public void registerPageFactory(String id, PageFactory factory) {
+    if (factory == null)
+      m_PageFactories.remove(id);
+    else
+      m_PageFactories.put(id, factory);
+  }
+
+  /**
+   * Returns the factory registered under the identifier.
+   *
+   * @param id		the identifier of the factory
+   * @return		the factory, null if none registered
+   */
+  public PageFactory getPageFactory(String id) {
+    return m_PageFactories.get(id);
+  }
+
+  /**
+   * Returns a snapshot of the current layout: titles, order, icons,
+   * selection, detached state and divider location. Only pages that have
+   * a factory identifier associated get stored, as only these can be
+   * recreated.
+   *
+   * @return		the snapshot
+   * @see		PageContainer#setFactoryID(String)
+   */
+  public Properties getSnapshot() {
+    Properties		result;
+    PageContainer	cont;
+    StringBuilder	selected;
+    String		prefix;
+    int			count;
+    int			i;
+
+    result   = new Properties();
+    selected = new StringBuilder();
+    count    = 0;
+    for (i = 0; i < getPageCount(); i++) {
+      cont = getPageContainerAt(i);
+      if (cont.getFactoryID() == null)
+	continue;
+      prefix = SNAPSHOT_KEY_PAGE + count;
+      result.setProperty(prefix + SNAPSHOT_SUFFIX_TITLE, (cont.getTitle() == null) ? "" : cont.getTitle());
+      result.setProperty(prefix + SNAPSHOT_SUFFIX_FACTORY, cont.getFactoryID());
+      if (cont.getFactoryParams() != null)
+	result.setProperty(prefix + SNAPSHOT_SUFFIX_PARAMS, cont.getFactoryParams());
+      if ((cont.getIcon() != null) && (cont.getIcon().getDescription() != null))
+	result.setProperty(prefix + SNAPSHOT_SUFFIX_ICON, cont.getIcon().getDescription());
+      if (cont.isDetached())
+	result.setProperty(prefix + SNAPSHOT_SUFFIX_DETACHED, "true");
+      if (m_PageList.isSelectedIndex(i)) {
+	if (selected.length() > 0)
+	  selected.append(",");
+	selected.append(count);
+      }
+      count++;
+    }
+    result.setProperty(SNAPSHOT_KEY_VERSION, "" + SNAPSHOT_VERSION);
+    result.setProperty(SNAPSHOT_KEY_COUNT, "" + count);
+    result.setProperty(SNAPSHOT_KEY_SELECTED, selected.toString());
+    result.setProperty(SNAPSHOT_KEY_DIVIDER, "" + getDividerLocation());
+
+    return result;
+  }
+
+  /**
+   * Returns a loader that creates the page using the factory.
+   *
+   * @param factory	the factory to use
+   * @param title	the title of the page
+   * @param params	the parameters for the factory, can be null
+   * @return		the loader
+   */
+  protected PageLoader newPendingPage(final PageFactory factory, final String title, final String params) {
+    return () -> factory.createPage(title, params);
+  }
+
+  /**
+   * Translates the selected snapshot indices into indices of the restored
+   * pages, dropping the ones that point to skipped or non-existent pages.
+   *
+   * @param selected	the selected snapshot indices
+   * @param indices	the mapping snapshot index -> restored index (-1 if skipped)
+   * @return		the selected indices of the restored pages
+   */
+  protected int[] translateSelection(int[] selected, int[] indices) {
+    int[]	result;
+    int		count;
+
+    result = new int[selected.length];
+    count  = 0;
+    for (int index: selected) {
+      if ((index < 0) || (index >= indices.length) || (indices[index] == -1))
+	continue;
+      result[count++] = indices[index];
+    }
+
+    return Arrays.copyOf(result, count);
+  }
+
+  /**
+   * Restores the layout from the snapshot, replacing all current pages.
+   * Pages get recreated lazily via the registered factories: only the
+   * selected and the detached pages get created immediately, all others
+   * when they get selected for the first time.
+   *
+   * @param snapshot	the snapshot to restore
+   * @return		null if successful, otherwise error message
+   * @see		#registerPageFactory(String, PageFactory)
+   */
+  public String restoreSnapshot(Properties snapshot) {
+    int				version;
+    int				count;
+    int				divider;
+    int				i;
+    int[]			selected;
+    int[]			indices;
+    String[]			parts;
+    String			prefix;
+    String			iconDesc;
+    String			title;
+    String			params;
+    PageFactory			factory;
+    PageContainer		cont;
+    List<PageContainer>		detached;
+    List<PageContainer>		restored;
+    Map<String,ImageIcon>	icons;
+
+    try {
+      version = Integer.parseInt(snapshot.getProperty(SNAPSHOT_KEY_VERSION, "-1"));
+      count   = Integer.parseInt(snapshot.getProperty(SNAPSHOT_KEY_COUNT, "0"));
+    }
+    catch (Exception e) {
+      return "Failed to parse snapshot header: " + e;
+    }
+    if (version != SNAPSHOT_VERSION)
+      return "Unsupported snapshot version: " + version;
+    if (count < 0)
+      return "Invalid number of pages in snapshot: " + count;
+
+    selected = new int[0];
+    if (!snapshot.getProperty(SNAPSHOT_KEY_SELECTED, "").isEmpty()) {
+      parts    = snapshot.getProperty(SNAPSHOT_KEY_SELECTED).split(",");
+      selected = new int[parts.length];
+      try {
+	for (i = 0; i < parts.length; i++)
+	  selected[i] = Integer.parseInt(parts[i].trim());
+      }
+      catch (Exception e) {
+	return "Failed to parse selected pages in snapshot: " + e;
+      }
+    }
+
+    divider = -1;
+    if (snapshot.containsKey(SNAPSHOT_KEY_DIVIDER)) {
+      try {
+	divider = Integer.parseInt(snapshot.getProperty(SNAPSHOT_KEY_DIVIDER).trim());
+      }
+      catch (Exception e) {
+	return "Failed to parse divider location in snapshot: " + e;
+      }
+    }
+
+    removeAllPages();
+
+    // snapshot index -> index of restored page (-1 if skipped)
+    indices  = new int[count];
+    Arrays.fill(indices, -1);
+    detached = new ArrayList<>();
+    restored = new ArrayList<>();
+    icons    = new HashMap<>();
+    m_IgnoreUpdates = true;
+    try {
+      for (i = 0; i < count; i++) {
+	prefix  = SNAPSHOT_KEY_PAGE + i;
+	factory = m_PageFactories.get(snapshot.getProperty(prefix + SNAPSHOT_SUFFIX_FACTORY, ""));
+	if (factory == null)
+	  continue;
+	title  = snapshot.getProperty(prefix + SNAPSHOT_SUFFIX_TITLE, "");
+	params = snapshot.getProperty(prefix + SNAPSHOT_SUFFIX_PARAMS);
+	cont   = new PageContainer(title, newLoadingPlaceholder(title));
+	cont.setFactoryID(snapshot.getProperty(prefix + SNAPSHOT_SUFFIX_FACTORY));
+	cont.setFactoryParams(params);
+	cont.setPendingPage(newPendingPage(factory, title, params));
+	iconDesc = snapshot.getProperty(prefix + SNAPSHOT_SUFFIX_ICON);
+	if (iconDesc != null) {
+	  if (!icons.containsKey(iconDesc)) {
+	    try {
+	      icons.put(iconDesc, new ImageIcon(new URL(iconDesc)));
+	    }
+	    catch (Exception e) {
+	      icons.put(iconDesc, null);
+	    }
+	  }
+	  cont.setIcon(icons.get(iconDesc));
+	}
+	if (snapshot.getProperty(prefix + SNAPSHOT_SUFFIX_DETACHED, "false").equals("true"))
+	  detached.add(cont);
+	indices[i] = restored.size();
+	restored.add(cont);
+      }
+      m_PageListModel.addAll(restored);
+
+      setSelectedIndices(translateSelection(selected, indices));
+      if (divider > -1)
+	setDividerLocation(divider);
+    }
+    finally {
+      m_IgnoreUpdates = false;
+    }
+
+    for (PageContainer d: detached) {
+      createPendingPage(d);
+      updateTitle(d.getTitle(), d.getDetachablePage());
+      d.getDetachablePage().detach();
+    }
+
+    update();
+
+    return null;
+  }
+
+  /**
+   * Saves the snapshot of the current layout to the specified file.
+   *
+   * @param filename	the file to save to
+   * @return		true if successfully saved
+   * @see		#getSnapshot()
+   */
+  public boolean saveSnapshot(String filename) {
+    return PropsUtils.save(getSnapshot(), filename, "MultiPagePane snapshot");
+  }
+
+  /**
+   * Restores the layout from the snapshot stored in the specified file.
+   *
+   * @param filename	the file to load from
+   * @return		null if successful, otherwise error message
+   * @see		#restoreSnapshot(Properties)
+   */
+  public String loadSnapshot(String filename) {
+    Properties	snapshot;
+
+    snapshot = new Properties();
+    if (!PropsUtils.load(snapshot, filename))
+      return "Failed to load snapshot from: " + filename;
+
+    return restoreSnapshot(snapshot);
+  }
+
   /**
    * moves the selected items up by 1.
    */
   public void moveUp() {
-    m_PageList.moveUp();
+    JListHelper.moveUp(m_PageList);
   }
 
   /**
    * moves the selected item down by 1.
    */
   public void moveDown() {
-    m_PageList.moveDown();
+    JListHelper.moveDown(m_PageList);
   }
 
   /**
    * moves the selected items to the top.
    */
   public void moveTop() {
-    m_PageList.moveTop();
+    JListHelper.moveTop(m_PageList);
   }
 
   /**
    * moves the selected items to the end.
    */
   public void moveBottom() {
-    m_PageList.moveBottom();
+    JListHelper.moveBottom(m_PageList);
   }
 
   /**
@@ -1115,7 +2018,7 @@ public class MultiPagePane
    * @return		true if the selected items can be moved
    */
   public boolean canMoveUp() {
-    return !m_ReadOnly && m_PageList.canMoveUp();
+    return !m_ReadOnly && JListHelper.canMoveUp(m_PageList);
   }
 
   /**
@@ -1124,7 +2027,7 @@ public class MultiPagePane
    * @return		true if the selected items can be moved
    */
   public boolean canMoveDown() {
-    return !m_ReadOnly && m_PageList.canMoveDown();
+    return !m_ReadOnly && JListHelper.canMoveDown(m_PageList);
   }
 
   /**
@@ -1175,23 +2078,44 @@ public class MultiPagePane
   }
 
   /**
-   * Updates the content panel.
+   * Schedules an update of the content panel. Multiple requests within
+   * the same EDT cycle get coalesced into a single update pass.
+   *
+   * @see		#performUpdate()
    */
   protected void update() {
+    if (m_IgnoreUpdates || m_UpdateScheduled)
+      return;
+
+    m_UpdateScheduled = true;
+    SwingUtilities.invokeLater(() -> {
+      m_UpdateScheduled = false;
+      performUpdate();
+    });
+  }
+
+  /**
+   * Updates the content panel, the buttons and notifies the change listeners.
+   * The content only gets swapped if the selected page changed.
+   */
+  protected void performUpdate() {
     Component comp;
 
     if (m_IgnoreUpdates)
       return;
 
-    m_PanelContent.removeAll();
-
+    if ((getSelectedPageContainer() != null) && getSelectedPageContainer().isPending())
+      createPendingPage(getSelectedPageContainer());
     comp = getSelectedDetachablePage();
-    if (comp != null)
-      m_PanelContent.add(comp, BorderLayout.CENTER);
 
-    m_PanelContent.invalidate();
-    m_PanelContent.revalidate();
-    m_PanelContent.repaint();
+    if ((comp != m_DisplayedPage) || ((comp != null) && (comp.getParent() != m_PanelContent))) {
+      m_PanelContent.removeAll();
+      if (comp != null)
+	m_PanelContent.add(comp, BorderLayout.CENTER);
+      m_DisplayedPage = comp;
+      m_PanelContent.revalidate();
+      m_PanelContent.repaint();
+    }
 
     m_PageList.repaint();
 
@@ -1209,8 +2133,8 @@ public class MultiPagePane
 
     m_ButtonUp.setEnabled((numSelected > 0) && canMoveUp());
     m_ButtonDown.setEnabled((numSelected > 0) && canMoveDown());
-    m_ButtonRemove.setEnabled(numSelected > 0);
-    m_ButtonRemoveAll.setEnabled(getPageCount() > 0);
+    m_ButtonRemove.setEnabled((numSelected > 0) && !m_ClosingApprovalInProgress);
+    m_ButtonRemoveAll.setEnabled((getPageCount() > 0) && !m_ClosingApprovalInProgress);
     m_ButtonUndo.setEnabled(canUndoPageClose());
   }
 
@@ -1271,6 +2195,26 @@ public class MultiPagePane
     return m_PageCloseApprover;
   }
 
+  /**
+   * Sets the asynchronous approver for closing multiple pages. If set, it
+   * is used instead of the synchronous one by
+   * {@link #checkedRemoveSelectedPages()} and {@link #checkedRemoveAllPages()}.
+   *
+   * @param value	the approver, null to remove
+   */
+  public void setAsyncPageCloseApprover(AsyncPageCloseApprover value) {
+    m_AsyncPageCloseApprover = value;
+  }
+
+  /**
+   * Returns the asynchronous approver for closing multiple pages.
+   *
+   * @return		the approver, null if none set
+   */
+  public AsyncPageCloseApprover getAsyncPageCloseApprover() {
+    return m_AsyncPageCloseApprover;
+  }
+
   /**
    * Generates the right-click menu for the JList.
    * <br><br>
@@ -1449,22 +2393,37 @@ public class MultiPagePane
   }
 
   /**
-   * Adds the page to its undo list, if enabled.
+   * Adds the page to its undo list, if enabled. For pages that are still
+   * loading or pending, the loader gets stored instead of the placeholder,
+   * so that undo can recreate the page.
    *
    * @param index	the position of the tab
    */
   protected void addPageUndo(int index) {
-    PageUndo 	undo;
+    PageUndo 		undo;
+    PageContainer	cont;
 
     if ((m_MaxPageCloseUndo < 1) || m_SkipPageUndo)
       return;
 
-    undo              = new PageUndo();
-    undo.component    = getPageAt(index);
-    undo.title        = getTitleAt(index);
-    undo.index        = index;
-    undo.icon         = getIconAt(index);
-    undo.selected     = (index == getSelectedIndex());
+    cont               = getPageContainerAt(index);
+    undo               = new PageUndo();
+    undo.component     = cont.getPage();
+    undo.title         = cont.getTitle();
+    undo.index         = index;
+    undo.icon          = cont.getIcon();
+    undo.selected      = (index == getSelectedIndex());
+    undo.factoryID     = cont.getFactoryID();
+    undo.factoryParams = cont.getFactoryParams();
+    if (cont.isPending()) {
+      undo.loader  = cont.getPendingPage();
+      undo.pending = true;
+    }
+    else if (cont.isLoading()) {
+      undo.loader = cont.getPageLoader();
+      if (undo.loader == null)
+	return;
+    }
 
     getPageUndoList().add(undo);
 
@@ -1497,8 +2456,18 @@ public class MultiPagePane
 
     undo = getPageUndoList().get(size - 1);
     getPageUndoList().remove(size - 1);
-    cont = new PageContainer(undo.title, undo.component, undo.icon);
-    addPage(undo.index, cont);
+    if ((undo.loader != null) && !undo.pending) {
+      cont = addPage(undo.index, undo.title, undo.loader);
+      cont.setIcon(undo.icon);
+    }
+    else {
+      cont = new PageContainer(undo.title, undo.component, undo.icon);
+      if (undo.pending)
+	cont.setPendingPage(undo.loader);
+      addPage(undo.index, cont);
+    }
+    cont.setFactoryID(undo.factoryID);
+    cont.setFactoryParams(undo.factoryParams);
     if (undo.selected)
       setSelectedIndex(undo.index);
 
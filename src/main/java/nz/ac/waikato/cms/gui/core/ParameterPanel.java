@@ -15,7 +15,7 @@
 
 /*
  * ParameterPanel.java
- * Copyright (C) 2010-2025 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2010-2026 University of Waikato, Hamilton, New Zealand
  */
 package nz.ac.waikato.cms.gui.core;
 
@@ -99,6 +99,9 @@ public class ParameterPanel
   /** the property change listener. */
   protected PropertyChangeListener m_PropertyChangeListener;
 
+  /** whether to ignore layout updates (e.g., when adding many parameters). */
+  protected boolean m_IgnoreUpdates;
+
   /**
    * Initializes the panel.
    */
@@ -155,6 +158,7 @@ public class ParameterPanel
     m_PreferredDimensionJSpinner = new Dimension(100, 20);
     m_MinDimensionJComboBox      = new Dimension(50, 20);
     m_ChangeListeners            = new HashSet<>();
+    m_IgnoreUpdates              = false;
     m_DocumentListener = new DocumentListener() {
       @Override
       public void insertUpdate(DocumentEvent e) {
@@ -590,6 +594,27 @@ public class ParameterPanel
     }
   }
 
+  /**
+   * Sets whether to ignore layout updates, e.g., when adding a large number
+   * of parameters. Re-enabling updates triggers a layout update.
+   *
+   * @param value	true if to ignore updates
+   */
+  public void setIgnoreUpdates(boolean value) {
+    m_IgnoreUpdates = value;
+    if (!m_IgnoreUpdates)
+      update();
+  }
+
+  /**
+   * Returns whether layout updates are currently ignored.
+   *
+   * @return		true if ignored
+   */
+  public boolean isIgnoreUpdates() {
+    return m_IgnoreUpdates;
+  }
+
   /**
    * Updates the layout.
    */
@@ -599,6 +624,9 @@ public class ParameterPanel
     GridBagConstraints	con;
     JPanel		panel;
 
+    if (m_IgnoreUpdates)
+      return;
+
     removeAll();
 
     layout = new GridBagLayout();
@@ -15,20 +15,30 @@
 
 /*
  * PropertiesParameterPanel.java
- * Copyright (C) 2013-2017 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2013-2026 University of Waikato, Hamilton, New Zealand
  */
 package nz.ac.waikato.cms.gui.core;
 
 import nz.ac.waikato.cms.core.FileUtils;
+import nz.ac.waikato.cms.core.ThreadUtils;
 
+import javax.swing.AbstractButton;
 import javax.swing.BorderFactory;
+import javax.swing.BoxLayout;
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JComponent;
+import javax.swing.JFormattedTextField;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JSpinner;
 import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import javax.swing.border.Border;
+import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
@@ -40,18 +50,39 @@ import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyEditor;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Displays all properties in a props file as parameters (alphabetically
@@ -69,6 +100,27 @@ public class PropertiesParameterPanel
   /** the default width for choosers. */
   public final static int DEFAULT_WIDTH_CHOOSERS = 250;
 
+  /** the default delay in msec before validating an edited property. */
+  public final static int DEFAULT_VALIDATION_DELAY = 250;
+
+  /** the (shared) border for valid text fields. */
+  public final static Border BORDER_VALID = BorderFactory.createEtchedBorder();
+
+  /** the (shared) border for invalid values. */
+  public final static Border BORDER_INVALID = BorderFactory.createLineBorder(Color.RED);
+
+  /** the separator for the group prefix of properties. */
+  public final static char GROUP_SEPARATOR = '.';
+
+  /** the header for properties without group prefix. */
+  public final static String GROUP_OTHER = "Other";
+
+  /** the maximum number of threads for expensive validations. */
+  public final static int MAX_VALIDATORS = 2;
+
+  /** the executor for expensive validations (shared across panels). */
+  protected static ExecutorService m_ValidationExecutor;
+
   /**
    * The various data types a property can have.
    *
@@ -104,12 +156,344 @@ public class PropertiesParameterPanel
     CUSTOM_COMPONENT,
   }
 
+  /**
+   * Container for the setText(String)/getText() accessors of a custom
+   * component class.
+   */
+  protected static class TextAccessor {
+
+    /** the setText(String) accessor, null if not available. */
+    public final MethodHandle setter;
+
+    /** the getText() accessor, null if not available. */
+    public final MethodHandle getter;
+
+    /**
+     * Looks up the accessors for the specified class.
+     *
+     * @param cls	the class to look up the accessors for
+     */
+    public TextAccessor(Class<?> cls) {
+      setter = lookUp(cls, "setText", new Class<?>[]{String.class}, MethodType.methodType(void.class, Component.class, String.class));
+      getter = lookUp(cls, "getText", new Class<?>[0], MethodType.methodType(Object.class, Component.class));
+    }
+
+    /**
+     * Looks up the public method and turns it into a method handle.
+     *
+     * @param cls	the class to inspect
+     * @param name	the name of the method
+     * @param params	the parameter types of the method
+     * @param type	the type of the generated handle
+     * @return		the handle, null if not available
+     */
+    protected static MethodHandle lookUp(Class<?> cls, String name, Class<?>[] params, MethodType type) {
+      Method	method;
+
+      try {
+	method = cls.getMethod(name, params);
+	return MethodHandles.publicLookup().unreflect(method).asType(type);
+      }
+      catch (Exception e) {
+	return null;
+      }
+    }
+  }
+
+  /** the cached text accessors per custom component class. */
+  protected static final ClassValue<TextAccessor> TEXT_ACCESSORS = new ClassValue<TextAccessor>() {
+    @Override
+    protected TextAccessor computeValue(Class<?> type) {
+      return new TextAccessor(type);
+    }
+  };
+
+  /**
+   * Interface for classes that want to be notified about changes of
+   * individual property values.
+   *
+   * @author  fracpete (fracpete at waikato dot ac dot nz)
+   */
+  public interface PropertyValueChangeListener {
+
+    /**
+     * Gets called when the value of a property changed.
+     *
+     * @param source	the panel that triggered the event
+     * @param key	the property that changed
+     * @param oldValue	the previous value, can be null
+     * @param newValue	the new value, can be null
+     */
+    public void propertyValueChanged(PropertiesParameterPanel source, String key, String oldValue, String newValue);
+  }
+
+  /**
+   * Collapsible section for the properties of a group, used in grouped mode.
+   * The editors only get constructed when the section is expanded the
+   * first time.
+   */
+  protected class PropertySection
+    extends JPanel {
+
+    private static final long serialVersionUID = 4917402735513372710L;
+
+    /** the name of the group. */
+    protected String m_Group;
+
+    /** the header button for expanding/collapsing. */
+    protected JButton m_ButtonHeader;
+
+    /** the panel with the editors, null if not yet constructed. */
+    protected ParameterPanel m_Panel;
+
+    /** the properties with editors (in the order of the panel). */
+    protected List<String> m_Keys;
+
+    /** the property/index relation (kept in sync with m_Keys). */
+    protected HashMap<String,Integer> m_KeyIndex;
+
+    /** the properties without editors yet (property - value). */
+    protected Map<String,String> m_Pending;
+
+    /** whether the section is expanded. */
+    protected boolean m_Expanded;
+
+    /**
+     * Initializes the section.
+     *
+     * @param group	the name of the group
+     */
+    public PropertySection(String group) {
+      super(new BorderLayout());
+
+      m_Group    = group;
+      m_Keys     = new ArrayList<>();
+      m_KeyIndex = new HashMap<>();
+      m_Pending  = new LinkedHashMap<>();
+      m_Expanded = false;
+
+      m_ButtonHeader = new JButton();
+      m_ButtonHeader.setHorizontalAlignment(JButton.LEFT);
+      m_ButtonHeader.addActionListener((ActionEvent e) -> setExpanded(!m_Expanded));
+      add(m_ButtonHeader, BorderLayout.NORTH);
+      setAlignmentX(LEFT_ALIGNMENT);
+      updateHeader();
+    }
+
+    /**
+     * Returns the name of the group.
+     *
+     * @return		the name
+     */
+    public String getGroup() {
+      return m_Group;
+    }
+
+    /**
+     * Updates the text and icon of the header.
+     */
+    protected void updateHeader() {
+      m_ButtonHeader.setText((m_Group.isEmpty() ? GROUP_OTHER : m_Group) + " (" + (m_Keys.size() + m_Pending.size()) + ")");
+      m_ButtonHeader.setIcon(GUIHelper.getIcon(m_Expanded ? "arrow-head-up.png" : "arrow-head-down.png"));
+    }
+
+    /**
+     * Adds a property whose editor gets constructed on expansion.
+     *
+     * @param key	the property
+     * @param value	the value of the property
+     */
+    public void addPending(String key, String value) {
+      if (m_Panel == null) {
+	m_Pending.put(key, value);
+	updateHeader();
+      }
+      else {
+	addPropertyEditor(key, value);
+      }
+    }
+
+    /**
+     * Returns whether the property still awaits its editor.
+     *
+     * @param key	the property
+     * @return		true if pending
+     */
+    public boolean isPending(String key) {
+      return m_Pending.containsKey(key);
+    }
+
+    /**
+     * Removes the property from the pending ones.
+     *
+     * @param key	the property
+     * @return		true if removed
+     */
+    public boolean removePending(String key) {
+      if (m_Pending.remove(key) == null)
+	return false;
+      updateHeader();
+      return true;
+    }
+
+    /**
+     * Returns the properties that still await their editors.
+     *
+     * @return		the properties
+     */
+    public Set<String> getPendingKeys() {
+      return m_Pending.keySet();
+    }
+
+    /**
+     * Returns whether the editors have been constructed.
+     *
+     * @return		true if constructed
+     */
+    public boolean isBuilt() {
+      return (m_Panel != null);
+    }
+
+    /**
+     * Returns the panel for the editors, constructs the editors of the
+     * pending properties if necessary.
+     *
+     * @return		the panel
+     */
+    public ParameterPanel getPanel() {
+      boolean		setting;
+      List<String>	keys;
+
+      if (m_Panel == null) {
+	m_Panel = new ParameterPanel();
+	m_Panel.setVisible(m_Expanded);
+	for (ChangeListener l: m_ChangeListeners)
+	  m_Panel.addChangeListener(l);
+	add(m_Panel, BorderLayout.CENTER);
+	m_Panel.setIgnoreUpdates(true);
+	setting             = m_SettingProperties;
+	m_SettingProperties = true;
+	keys                = new ArrayList<>(m_Pending.keySet());
+	try {
+	  for (String key: keys)
+	    addPropertyEditor(key, m_Pending.remove(key));
+	}
+	finally {
+	  m_SettingProperties = setting;
+	  m_Panel.setIgnoreUpdates(false);
+	}
+	updateHeader();
+      }
+      return m_Panel;
+    }
+
+    /**
+     * Adds the editor of the property.
+     *
+     * @param key	the property
+     * @param label	the label
+     * @param comp	the editor
+     */
+    public void addEditor(String key, String label, Component comp) {
+      if (comp instanceof AbstractChooserPanel)
+	getPanel().addParameter(label, (AbstractChooserPanel) comp);
+      else
+	getPanel().addParameter(label, comp);
+      m_KeyIndex.put(key, m_Keys.size());
+      m_Keys.add(key);
+      updateHeader();
+    }
+
+    /**
+     * Returns the editor of the property.
+     *
+     * @param key	the property
+     * @return		the editor, null if not available
+     */
+    public Component getEditor(String key) {
+      Integer	index;
+
+      index = m_KeyIndex.get(key);
+      if ((m_Panel == null) || (index == null))
+	return null;
+      return m_Panel.getParameter(index);
+    }
+
+    /**
+     * Removes the editor of the property.
+     *
+     * @param key	the property
+     * @return		true if removed
+     */
+    public boolean removeEditor(String key) {
+      Integer	index;
+      int	i;
+
+      if ((m_Panel == null) || !m_KeyIndex.containsKey(key))
+	return false;
+      index = m_KeyIndex.remove(key);
+      m_Keys.remove((int) index);
+      for (i = index; i < m_Keys.size(); i++)
+	m_KeyIndex.put(m_Keys.get(i), i);
+      m_Panel.removeParameter(index);
+      updateHeader();
+      return true;
+    }
+
+    /**
+     * Expands/collapses the section, constructs the editors on first
+     * expansion.
+     *
+     * @param value	true if to expand
+     */
+    public void setExpanded(boolean value) {
+      m_Expanded = value;
+      if (m_Expanded)
+	getPanel();
+      if (m_Panel != null)
+	m_Panel.setVisible(m_Expanded);
+      updateHeader();
+      revalidate();
+      repaint();
+    }
+
+    /**
+     * Returns whether the section is expanded.
+     *
+     * @return		true if expanded
+     */
+    public boolean isExpanded() {
+      return m_Expanded;
+    }
+  }
+
   /** the panel for the properties. */
   protected ParameterPanel m_PanelProperties;
 
+  /** the scroll pane for the properties. */
+  protected BaseScrollPane m_ScrollPane;
+
+  /** the panel for the sections (grouped mode). */
+  protected JPanel m_PanelSections;
+
+  /** whether to group the properties by prefix. */
+  protected boolean m_Grouped;
+
+  /** the groups that are expanded initially (first group if empty). */
+  protected Set<String> m_ExpandedGroups;
+
+  /** the group/section relation (grouped mode). */
+  protected LinkedHashMap<String,PropertySection> m_Sections;
+
+  /** the property/section relation (grouped mode). */
+  protected HashMap<String,PropertySection> m_KeySection;
+
   /** the identifiers of the property. */
   protected List<String> m_Identifiers;
 
+  /** the identifier/index relation (kept in sync with m_Identifiers). */
+  protected HashMap<String,Integer> m_IdentifierIndex;
+
   /** the property/property type relation. */
   protected HashMap<String,PropertyType> m_PropertyTypes;
 
@@ -134,6 +518,9 @@ public class PropertiesParameterPanel
   /** the custom order for the properties. */
   protected List<String> m_Order;
 
+  /** the shared schema (null if none), the panel's own settings take precedence. */
+  protected PropertySchema m_Schema;
+
   /** the panel for the buttons. */
   protected JPanel m_PanelButtons;
 
@@ -146,6 +533,51 @@ public class PropertiesParameterPanel
   /** the filechooser for loading/saving properties. */
   protected BaseFileChooser m_FileChooser;
 
+  /** the progress bar for loading/saving. */
+  protected JProgressBar m_ProgressIO;
+
+  /** the button for cancelling loading/saving. */
+  protected JButton m_ButtonCancelIO;
+
+  /** the worker for loading/saving (null if none running). */
+  protected SwingWorker<?,?> m_WorkerIO;
+
+  /** the property values as of the last setProperties call. */
+  protected HashMap<String,String> m_OriginalValues;
+
+  /** the current property values. */
+  protected HashMap<String,String> m_CurrentValues;
+
+  /** the properties that differ from their original values. */
+  protected Set<String> m_ChangedKeys;
+
+  /** the listeners for property value changes. */
+  protected HashSet<PropertyValueChangeListener> m_PropertyValueChangeListeners;
+
+  /** the change listeners (get added to the panels of the sections as well). */
+  protected HashSet<ChangeListener> m_ChangeListeners;
+
+  /** the property/remover relation for the value listeners of the components. */
+  protected HashMap<String,Runnable> m_ValueListenerRemovers;
+
+  /** whether properties are currently being set. */
+  protected boolean m_SettingProperties;
+
+  /** the property/validator relation. */
+  protected HashMap<String,PropertyValidator> m_Validators;
+
+  /** the delay in msec before validating an edited property. */
+  protected int m_ValidationDelay;
+
+  /** the property/timer relation for debouncing validation. */
+  protected HashMap<String,Timer> m_ValidationTimers;
+
+  /** the property/border relation for valid values. */
+  protected HashMap<String,Border> m_ValidBorders;
+
+  /** the property/error relation of invalid values. */
+  protected HashMap<String,String> m_ValidationErrors;
+
   /**
    * Initializes the members.
    */
@@ -154,6 +586,7 @@ public class PropertiesParameterPanel
     super.initialize();
 
     m_Identifiers         = new ArrayList<>();
+    m_IdentifierIndex     = new HashMap<>();
     m_PropertyTypes       = new HashMap<>();
     m_ActualPropertyTypes = new HashMap<>();
     m_Choosers            = new HashMap<>();
@@ -162,7 +595,24 @@ public class PropertiesParameterPanel
     m_Label               = new HashMap<>();
     m_Component           = new HashMap<>();
     m_Order               = new ArrayList<>();
+    m_Schema              = null;
+    m_Grouped             = false;
+    m_ExpandedGroups      = new HashSet<>();
+    m_Sections            = new LinkedHashMap<>();
+    m_KeySection          = new HashMap<>();
     m_FileChooser         = null;
+    m_OriginalValues      = new HashMap<>();
+    m_CurrentValues       = new HashMap<>();
+    m_ChangedKeys         = new HashSet<>();
+    m_PropertyValueChangeListeners = new HashSet<>();
+    m_ChangeListeners              = new HashSet<>();
+    m_ValueListenerRemovers        = new HashMap<>();
+    m_SettingProperties   = false;
+    m_Validators          = new HashMap<>();
+    m_ValidationDelay     = DEFAULT_VALIDATION_DELAY;
+    m_ValidationTimers    = new HashMap<>();
+    m_ValidBorders        = new HashMap<>();
+    m_ValidationErrors    = new HashMap<>();
   }
 
   /**
@@ -177,7 +627,11 @@ public class PropertiesParameterPanel
     setLayout(new BorderLayout());
 
     m_PanelProperties = new ParameterPanel();
-    add(new BaseScrollPane(m_PanelProperties), BorderLayout.CENTER);
+    m_ScrollPane      = new BaseScrollPane(m_PanelProperties);
+    add(m_ScrollPane, BorderLayout.CENTER);
+
+    m_PanelSections = new JPanel();
+    m_PanelSections.setLayout(new BoxLayout(m_PanelSections, BoxLayout.Y_AXIS));
 
     m_PanelButtons = new JPanel(new BorderLayout());
     add(m_PanelButtons, BorderLayout.SOUTH);
@@ -192,6 +646,19 @@ public class PropertiesParameterPanel
     m_ButtonSave = new JButton(GUIHelper.getIcon("save.gif"));
     m_ButtonSave.addActionListener((ActionEvent e) -> saveProperties());
     panel.add(m_ButtonSave);
+
+    panel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+    m_PanelButtons.add(panel, BorderLayout.EAST);
+
+    m_ProgressIO = new JProgressBar(0, 100);
+    m_ProgressIO.setVisible(false);
+    panel.add(m_ProgressIO);
+
+    m_ButtonCancelIO = new JButton(GUIHelper.getIcon("stop.gif"));
+    m_ButtonCancelIO.setToolTipText("Cancels loading/saving");
+    m_ButtonCancelIO.addActionListener((ActionEvent e) -> cancelIO());
+    m_ButtonCancelIO.setVisible(false);
+    panel.add(m_ButtonCancelIO);
   }
 
   /**
@@ -212,14 +679,173 @@ public class PropertiesParameterPanel
     m_Choosers.clear();
     m_Lists.clear();
     m_Help.clear();
+    m_Validators.clear();
   }
 
   /**
    * Removes all properties.
    */
   protected void clearProperties() {
+    for (Runnable remover: m_ValueListenerRemovers.values())
+      remover.run();
+    m_ValueListenerRemovers.clear();
+    for (Timer timer: m_ValidationTimers.values())
+      timer.stop();
+    m_ValidationTimers.clear();
+    m_ValidBorders.clear();
+    m_ValidationErrors.clear();
+    m_OriginalValues.clear();
+    m_CurrentValues.clear();
+    m_ChangedKeys.clear();
     m_Identifiers.clear();
+    m_IdentifierIndex.clear();
     m_PanelProperties.clearParameters();
+    m_PanelSections.removeAll();
+    m_Sections.clear();
+    m_KeySection.clear();
+  }
+
+  /**
+   * Sets whether to group the properties by their prefix (up to the first
+   * {@link #GROUP_SEPARATOR}) into collapsible sections. The editors of a
+   * section only get constructed when it gets expanded the first time.
+   * Takes effect with the next call of {@link #setProperties(Properties)}.
+   *
+   * @param value	true if to group
+   */
+  public void setGrouped(boolean value) {
+    m_Grouped = value;
+  }
+
+  /**
+   * Returns whether the properties are grouped by their prefix.
+   *
+   * @return		true if grouped
+   */
+  public boolean isGrouped() {
+    return m_Grouped;
+  }
+
+  /**
+   * Sets the groups that are expanded initially in grouped mode. If empty,
+   * only the first group gets expanded.
+   *
+   * @param value	the groups
+   */
+  public void setExpandedGroups(Collection<String> value) {
+    m_ExpandedGroups.clear();
+    m_ExpandedGroups.addAll(value);
+  }
+
+  /**
+   * Returns the groups that are expanded initially in grouped mode.
+   *
+   * @return		the groups
+   */
+  public Set<String> getExpandedGroups() {
+    return m_ExpandedGroups;
+  }
+
+  /**
+   * Returns the group of the property.
+   *
+   * @param key		the property
+   * @return		the group, empty string if no prefix
+   */
+  protected String getGroup(String key) {
+    int		index;
+
+    index = key.indexOf(GROUP_SEPARATOR);
+    if (index > 0)
+      return key.substring(0, index);
+    else
+      return "";
+  }
+
+  /**
+   * Returns the currently displayed groups (grouped mode).
+   *
+   * @return		the groups
+   */
+  public List<String> getGroups() {
+    return new ArrayList<>(m_Sections.keySet());
+  }
+
+  /**
+   * Returns the section for the group, creates it if necessary.
+   *
+   * @param group	the group
+   * @return		the section
+   */
+  protected PropertySection getSection(String group) {
+    PropertySection	result;
+
+    result = m_Sections.get(group);
+    if (result == null) {
+      result = new PropertySection(group);
+      m_Sections.put(group, result);
+      m_PanelSections.add(result);
+    }
+
+    return result;
+  }
+
+  /**
+   * Expands/collapses the section of the group (grouped mode).
+   *
+   * @param group	the group
+   * @param expanded	true if to expand
+   */
+  public void setGroupExpanded(String group, boolean expanded) {
+    if (m_Sections.containsKey(group))
+      m_Sections.get(group).setExpanded(expanded);
+  }
+
+  /**
+   * Returns whether the section of the group is expanded (grouped mode).
+   *
+   * @param group	the group
+   * @return		true if expanded
+   */
+  public boolean isGroupExpanded(String group) {
+    return m_Sections.containsKey(group) && m_Sections.get(group).isExpanded();
+  }
+
+  /**
+   * Adds the editor to the panel or (in grouped mode) section.
+   *
+   * @param identifier	the identifier of the property
+   * @param label	the label
+   * @param comp	the editor
+   */
+  protected void addEditor(String identifier, String label, Component comp) {
+    PropertySection	section;
+
+    if (m_Grouped) {
+      section = getSection(getGroup(identifier));
+      section.removePending(identifier);
+      m_KeySection.put(identifier, section);
+      section.addEditor(identifier, label, comp);
+    }
+    else if (comp instanceof AbstractChooserPanel) {
+      m_PanelProperties.addParameter(label, (AbstractChooserPanel) comp);
+    }
+    else {
+      m_PanelProperties.addParameter(label, comp);
+    }
+  }
+
+  /**
+   * Registers the identifier, ensuring that it is unique.
+   *
+   * @param identifier	the unique identifier of the property
+   * @throws IllegalArgumentException	if the identifier already exists
+   */
+  protected void addIdentifier(String identifier) {
+    if (m_IdentifierIndex.containsKey(identifier))
+      throw new IllegalArgumentException("Identifier '" + identifier + "' already present!");
+    m_IdentifierIndex.put(identifier, m_Identifiers.size());
+    m_Identifiers.add(identifier);
   }
 
   /**
@@ -231,10 +857,91 @@ public class PropertiesParameterPanel
    * @throws IllegalArgumentException	if the identifier already exists
    */
   public void addProperty(String identifier, String label, Component comp) {
-    if (m_Identifiers.contains(identifier))
-      throw new IllegalArgumentException("Identifier '" + identifier + "' already present!");
-    m_Identifiers.add(identifier);
-    m_PanelProperties.addParameter(label, comp);
+    addIdentifier(identifier);
+    addEditor(identifier, label, comp);
+    initPropertyValue(identifier, comp);
+  }
+
+  /**
+   * Adds multiple properties at once, updating the layout only once.
+   * Identifiers get checked for uniqueness before adding any property.
+   *
+   * @param identifiers	the unique identifiers of the properties
+   * @param labels	the labels to add, the mnemonic to use is preceded by "_"
+   * @param comps	the components to add (can be {@link AbstractChooserPanel} as well)
+   * @throws IllegalArgumentException	if an identifier already exists or the lists differ in length
+   */
+  public void addProperties(List<String> identifiers, List<String> labels, List<? extends Component> comps) {
+    HashSet<String>	unique;
+    boolean		ignore;
+    int			i;
+
+    if ((identifiers.size() != labels.size()) || (identifiers.size() != comps.size()))
+      throw new IllegalArgumentException("Number of identifiers, labels and components differ: " + identifiers.size() + ", " + labels.size() + ", " + comps.size());
+    unique = new HashSet<>();
+    for (String identifier: identifiers) {
+      if (m_IdentifierIndex.containsKey(identifier) || !unique.add(identifier))
+	throw new IllegalArgumentException("Identifier '" + identifier + "' already present!");
+    }
+
+    ignore = m_PanelProperties.isIgnoreUpdates();
+    m_PanelProperties.setIgnoreUpdates(true);
+    try {
+      for (i = 0; i < identifiers.size(); i++) {
+	if (comps.get(i) instanceof AbstractChooserPanel)
+	  addProperty(identifiers.get(i), labels.get(i), (AbstractChooserPanel) comps.get(i));
+	else
+	  addProperty(identifiers.get(i), labels.get(i), comps.get(i));
+      }
+    }
+    finally {
+      m_PanelProperties.setIgnoreUpdates(ignore);
+    }
+  }
+
+  /**
+   * Removes the property associated with the identifier.
+   *
+   * @param identifier	the identifier of the property to remove
+   * @return		true if removed
+   */
+  public boolean removeProperty(String identifier) {
+    Integer		index;
+    int			i;
+    PropertySection	section;
+
+    section = m_KeySection.get(identifier);
+    if ((section != null) && section.removePending(identifier)) {
+      m_KeySection.remove(identifier);
+      m_OriginalValues.remove(identifier);
+      m_CurrentValues.remove(identifier);
+      m_ChangedKeys.remove(identifier);
+      return true;
+    }
+
+    index = m_IdentifierIndex.remove(identifier);
+    if (index == null)
+      return false;
+    m_Identifiers.remove((int) index);
+    for (i = index; i < m_Identifiers.size(); i++)
+      m_IdentifierIndex.put(m_Identifiers.get(i), i);
+    if (m_ValueListenerRemovers.containsKey(identifier))
+      m_ValueListenerRemovers.remove(identifier).run();
+    if (m_ValidationTimers.containsKey(identifier))
+      m_ValidationTimers.remove(identifier).stop();
+    m_ValidBorders.remove(identifier);
+    m_ValidationErrors.remove(identifier);
+    m_OriginalValues.remove(identifier);
+    m_CurrentValues.remove(identifier);
+    m_ChangedKeys.remove(identifier);
+    if (section != null) {
+      m_KeySection.remove(identifier);
+      section.removeEditor(identifier);
+    }
+    else {
+      m_PanelProperties.removeParameter(index);
+    }
+    return true;
   }
 
   /**
@@ -246,10 +953,9 @@ public class PropertiesParameterPanel
    * @throws IllegalArgumentException	if the identifier already exists
    */
   public void addProperty(String identifier, String label, AbstractChooserPanel chooser) {
-    if (m_Identifiers.contains(identifier))
-      throw new IllegalArgumentException("Identifier '" + identifier + "' already present!");
-    m_Identifiers.add(identifier);
-    m_PanelProperties.addParameter(label, chooser);
+    addIdentifier(identifier);
+    addEditor(identifier, label, chooser);
+    initPropertyValue(identifier, chooser);
   }
 
   /**
@@ -259,6 +965,8 @@ public class PropertiesParameterPanel
    * @return		the component at the position
    */
   public Component getProperty(int index) {
+    if (m_Grouped)
+      return getProperty(m_Identifiers.get(index));
     return m_PanelProperties.getParameter(index);
   }
 
@@ -269,22 +977,25 @@ public class PropertiesParameterPanel
    * @return		the associated component, null if none found
    */
   public Component getProperty(String identifier) {
-    int		index;
+    Integer	index;
 
-    index = m_Identifiers.indexOf(identifier);
-    if (index == -1)
+    index = m_IdentifierIndex.get(identifier);
+    if (index == null)
       return null;
+    else if (m_KeySection.containsKey(identifier))
+      return m_KeySection.get(identifier).getEditor(identifier);
     else
       return m_PanelProperties.getParameter(index);
   }
 
   /**
-   * Returns the number of properties currently displayed.
+   * Returns the number of properties currently displayed. In grouped mode,
+   * properties of sections that haven't been expanded yet are not included.
    *
    * @return		the number of properties
    */
   public int getPropertyCount() {
-    return m_PanelProperties.getParameterCount();
+    return m_Identifiers.size();
   }
 
   /**
@@ -305,7 +1016,8 @@ public class PropertiesParameterPanel
    * @return		true if a type has been specified
    */
   public boolean hasPropertyType(String property) {
-    return m_PropertyTypes.containsKey(property);
+    return m_PropertyTypes.containsKey(property)
+      || ((m_Schema != null) && (m_Schema.getType(property) != null));
   }
 
   /**
@@ -316,8 +1028,10 @@ public class PropertiesParameterPanel
    * @return		true if a type has been specified
    */
   public PropertyType getPropertyType(String property) {
-    if (hasPropertyType(property))
+    if (m_PropertyTypes.containsKey(property))
       return m_PropertyTypes.get(property);
+    else if ((m_Schema != null) && (m_Schema.getType(property) != null))
+      return m_Schema.getType(property);
     else
       return PropertyType.STRING;
   }
@@ -364,6 +1078,28 @@ public class PropertiesParameterPanel
     return m_Order;
   }
 
+  /**
+   * Sets the schema to use. The schema is only referenced, not copied,
+   * and can therefore be shared across panels. Types, labels, etc set
+   * directly on the panel take precedence over the ones from the schema.
+   * If no custom order has been set on the panel, the schema's order is
+   * used.
+   *
+   * @param value	the schema, null to remove
+   */
+  public void setSchema(PropertySchema value) {
+    m_Schema = value;
+  }
+
+  /**
+   * Returns the schema in use.
+   *
+   * @return		the schema, null if none
+   */
+  public PropertySchema getSchema() {
+    return m_Schema;
+  }
+
   /**
    * Checks whether a chooser has been specified for a particular
    * property.
@@ -372,7 +1108,8 @@ public class PropertiesParameterPanel
    * @return		true if a chooser has been specified
    */
   public boolean hasChooser(String property) {
-    return m_Choosers.containsKey(property);
+    return m_Choosers.containsKey(property)
+      || ((m_Schema != null) && (m_Schema.getChooserFactory(property) != null));
   }
 
   /**
@@ -393,7 +1130,15 @@ public class PropertiesParameterPanel
    * @return		the chooser, null if none available
    */
   public AbstractChooserPanel getChooser(String property) {
-    return m_Choosers.get(property);
+    AbstractChooserPanel<?>	result;
+
+    result = m_Choosers.get(property);
+    if ((result == null) && (m_Schema != null) && (m_Schema.getChooserFactory(property) != null)) {
+      result = m_Schema.getChooserFactory(property).createChooser();
+      m_Choosers.put(property, result);
+    }
+
+    return result;
   }
 
   /**
@@ -404,7 +1149,8 @@ public class PropertiesParameterPanel
    * @return		true if a custom component has been specified
    */
   public boolean hasComponent(String property) {
-    return m_Component.containsKey(property);
+    return m_Component.containsKey(property)
+      || ((m_Schema != null) && (m_Schema.getEditorFactory(property) != null));
   }
 
   /**
@@ -426,7 +1172,15 @@ public class PropertiesParameterPanel
    * @return		the custom component, null if none available
    */
   public Component getComponent(String property) {
-    return m_Component.get(property);
+    Component	result;
+
+    result = m_Component.get(property);
+    if ((result == null) && (m_Schema != null) && (m_Schema.getEditorFactory(property) != null)) {
+      result = m_Schema.getEditorFactory(property).createEditor();
+      m_Component.put(property, result);
+    }
+
+    return result;
   }
 
   /**
@@ -437,7 +1191,8 @@ public class PropertiesParameterPanel
    * @return		true if a list has been specified
    */
   public boolean hasList(String property) {
-    return m_Lists.containsKey(property);
+    return m_Lists.containsKey(property)
+      || ((m_Schema != null) && m_Schema.hasList(property));
   }
 
   /**
@@ -458,6 +1213,8 @@ public class PropertiesParameterPanel
    * @return		the list, null if none available
    */
   public String[] getList(String property) {
+    if (!m_Lists.containsKey(property) && (m_Schema != null))
+      return m_Schema.getList(property);
     return m_Lists.get(property);
   }
 
@@ -469,7 +1226,8 @@ public class PropertiesParameterPanel
    * @return		true if a help has been specified
    */
   public boolean hasHelp(String property) {
-    return m_Help.containsKey(property);
+    return m_Help.containsKey(property)
+      || ((m_Schema != null) && (m_Schema.getHelp(property) != null));
   }
 
   /**
@@ -490,6 +1248,8 @@ public class PropertiesParameterPanel
    * @return		the help, null if none available
    */
   public String getHelp(String property) {
+    if (!m_Help.containsKey(property) && (m_Schema != null))
+      return m_Schema.getHelp(property);
     return m_Help.get(property);
   }
 
@@ -501,7 +1261,8 @@ public class PropertiesParameterPanel
    * @return		true if a label has been specified
    */
   public boolean hasLabel(String property) {
-    return m_Label.containsKey(property);
+    return m_Label.containsKey(property)
+      || ((m_Schema != null) && (m_Schema.getLabel(property) != null));
   }
 
   /**
@@ -522,6 +1283,8 @@ public class PropertiesParameterPanel
    * @return		the label, null if none available
    */
   public String getLabel(String property) {
+    if (!m_Label.containsKey(property) && (m_Schema != null))
+      return m_Schema.getLabel(property);
     return m_Label.get(property);
   }
 
@@ -562,18 +1325,20 @@ public class PropertiesParameterPanel
    * @param text	the text to set
    */
   protected void setText(Component comp, String text) {
-    Method	method;
+    MethodHandle	setter;
 
     if (comp instanceof JTextComponent) {
       ((JTextComponent) comp).setText(text);
     }
     else {
+      setter = TEXT_ACCESSORS.get(comp.getClass()).setter;
+      if (setter == null)
+	throw new IllegalStateException("Class " + comp.getClass().getName() + " has no setText(String) method!");
       try {
-	method = comp.getClass().getMethod("setText", String.class);
-	method.invoke(comp, text);
+	setter.invokeExact(comp, text);
       }
-      catch (Exception e) {
-	throw new IllegalStateException("Class " + comp.getClass().getName() + " has no setText(String) method!");
+      catch (Throwable t) {
+	throw new IllegalStateException("Failed to call setText(String) of class " + comp.getClass().getName() + "!", t);
       }
     }
   }
@@ -585,158 +1350,86 @@ public class PropertiesParameterPanel
    * @return		the obtained text
    */
   protected String getText(Component comp) {
-    Method	method;
+    MethodHandle	getter;
+    Object		result;
 
     if (comp instanceof JTextComponent) {
       return ((JTextComponent) comp).getText();
     }
     else {
+      getter = TEXT_ACCESSORS.get(comp.getClass()).getter;
+      if (getter == null)
+	throw new IllegalStateException("Class " + comp.getClass().getName() + " has no getText() method that returns a String object!");
       try {
-	method = comp.getClass().getMethod("getText");
-	return (String) method.invoke(comp);
+	result = (Object) getter.invokeExact(comp);
       }
-      catch (Exception e) {
-	throw new IllegalStateException("Class " + comp.getClass().getName() + " has no getText() method that returns a String object!");
+      catch (Throwable t) {
+	throw new IllegalStateException("Failed to call getText() of class " + comp.getClass().getName() + "!", t);
       }
+      if ((result != null) && !(result instanceof String))
+	throw new IllegalStateException("Class " + comp.getClass().getName() + " has no getText() method that returns a String object!");
+      return (String) result;
     }
   }
 
   /**
-   * Sets the properties to base the properties on.
+   * Sets the properties to base the properties on. In grouped mode, only
+   * the editors of the initially expanded groups get constructed.
    *
    * @param value	the properties to use
+   * @see		#setGrouped(boolean)
    */
   public void setProperties(Properties value) {
-    List<String>		keys;
-    JCheckBox			checkbox;
-    JSpinner			spinner;
-    PropertyType		type;
-    DirectoryChooserPanel	dirPanel;
-    FileChooserPanel		filePanel;
-    JComboBox			combo;
-    Component			comp;
-    String			help;
-    String			label;
+    List<String>	keys;
+    PropertySection	section;
+    String		prop;
+    boolean		first;
 
     clearProperties();
-    keys = new ArrayList<>(value.stringPropertyNames());
-    keys.removeAll(m_Order);
-    Collections.sort(keys);
-    keys.addAll(0, m_Order);
-    for (String key: keys) {
-      type = fixPropertyType(key, getPropertyType(key));
-      help = getHelp(key);
-
-      m_ActualPropertyTypes.put(key, type);
-      label = hasLabel(key) ? getLabel(key) : key;
-
-      try {
-        switch (type) {
-          case DOUBLE: {
-            final JTextField textfield = new JTextField(20);
-            textfield.setText(value.getProperty(key));
-            textfield.setToolTipText(help);
-            textfield.setBorder(BorderFactory.createEtchedBorder());
-            textfield.getDocument().addDocumentListener(new DocumentListener() {
-              @Override
-              public void removeUpdate(DocumentEvent e) {
-                check(e);
-              }
-              @Override
-              public void insertUpdate(DocumentEvent e) {
-                check(e);
-              }
-              @Override
-              public void changedUpdate(DocumentEvent e) {
-                check(e);
-              }
-              protected void check(DocumentEvent e) {
-                String text = textfield.getText();
-                boolean isDouble = true;
-                try {
-                  Double.parseDouble(text);
-		}
-		catch (Exception ex) {
-                  isDouble = false;
-		}
-                if ((text.length() == 0) || isDouble)
-                  textfield.setBorder(BorderFactory.createEtchedBorder());
-                else
-                  textfield.setBorder(BorderFactory.createLineBorder(Color.RED));
-              }
-            });
-            addProperty(key, label, textfield);
-            break;
-          }
-          case STRING:
-            final JTextField textfield = new JTextField();
-            textfield.setText(value.getProperty(key));
-            textfield.setToolTipText(help);
-            addProperty(key, label, textfield);
-            break;
-          case BOOLEAN:
-            checkbox = new JCheckBox();
-            checkbox.setSelected(Boolean.parseBoolean(value.getProperty(key)));
-            checkbox.setToolTipText(help);
-            addProperty(key, label, checkbox);
-            break;
-          case INTEGER:
-            spinner = new JSpinner();
-            spinner.setValue(Integer.parseInt(value.getProperty(key)));
-            spinner.setToolTipText(help);
-            addProperty(key, label, spinner);
-            break;
-          case LONG:
-            spinner = new JSpinner();
-            spinner.setValue(Long.parseLong(value.getProperty(key)));
-            spinner.setToolTipText(help);
-            addProperty(key, label, spinner);
-            break;
-          case DIRECTORY:
-          case DIRECTORY_ABSOLUTE:
-            dirPanel = new DirectoryChooserPanel();
-            dirPanel.setCurrent(new File(value.getProperty(key)));
-            dirPanel.setPreferredSize(new Dimension(DEFAULT_WIDTH_CHOOSERS, dirPanel.getPreferredSize().height));
-            dirPanel.setToolTipText(help);
-            dirPanel.setInlineEditingEnabled(true);
-            addProperty(key, label, dirPanel);
-            break;
-          case FILE:
-          case FILE_ABSOLUTE:
-            filePanel = new FileChooserPanel();
-            filePanel.setCurrent(new File(value.getProperty(key)));
-            filePanel.setPreferredSize(new Dimension(DEFAULT_WIDTH_CHOOSERS, filePanel.getPreferredSize().height));
-            filePanel.setToolTipText(help);
-            filePanel.setInlineEditingEnabled(true);
-            addProperty(key, label, filePanel);
-            break;
-          case LIST:
-          case BLANK_SEPARATED_LIST_FIXED:
-          case COMMA_SEPARATED_LIST_FIXED:
-            if (type == PropertyType.BLANK_SEPARATED_LIST_FIXED)
-              combo = new JComboBox(value.getProperty(key).split(" "));
-            else if (type == PropertyType.COMMA_SEPARATED_LIST_FIXED)
-              combo = new JComboBox(value.getProperty(key).split(","));
-            else
-              combo = new JComboBox(getList(key));
-            combo.setSelectedItem(value.getProperty(key));
-            combo.setToolTipText(help);
-            addProperty(key, label, combo);
-            break;
-	  case CUSTOM_COMPONENT:
-	    comp = getComponent(key);
-	    setText(comp, value.getProperty(key));
-	    updateToolTipText(comp, help);
-            addProperty(key, label, getComponent(key));
-            break;
-          default:
-            throw new IllegalStateException("Unhandled property type (property '" + keys + "'): " + type);
-        }
+    m_SettingProperties = true;
+    m_PanelProperties.setIgnoreUpdates(true);
+    try {
+      if ((m_Schema != null) && m_Order.isEmpty()) {
+	keys = m_Schema.sortKeys(value.stringPropertyNames());
       }
-      catch (Exception e) {
-        System.err.println("Failed to set property/type: '" + key + "'/" + type);
-        e.printStackTrace();
+      else {
+	keys = new ArrayList<>(value.stringPropertyNames());
+	keys.removeAll(m_Order);
+	Collections.sort(keys);
+	keys.addAll(0, m_Order);
       }
+      if (m_Grouped) {
+	m_ScrollPane.setViewportView(m_PanelSections);
+	for (String key: keys) {
+	  prop = value.getProperty(key);
+	  if (prop == null)
+	    continue;
+	  section = getSection(getGroup(key));
+	  section.addPending(key, prop);
+	  m_KeySection.put(key, section);
+	  m_OriginalValues.put(key, prop);
+	  m_CurrentValues.put(key, prop);
+	}
+	first = true;
+	for (PropertySection sec: m_Sections.values()) {
+	  if (m_ExpandedGroups.contains(sec.getGroup()) || (m_ExpandedGroups.isEmpty() && first))
+	    sec.setExpanded(true);
+	  first = false;
+	}
+      }
+      else {
+	m_ScrollPane.setViewportView(m_PanelProperties);
+	for (String key: keys) {
+	  prop = value.getProperty(key);
+	  if (prop != null)
+	    m_OriginalValues.put(key, prop);
+	  addPropertyEditor(key, prop);
+	}
+      }
+    }
+    finally {
+      m_PanelProperties.setIgnoreUpdates(false);
+      m_SettingProperties = false;
     }
     invalidate();
     validate();
@@ -744,85 +1437,644 @@ public class PropertiesParameterPanel
   }
 
   /**
-   * Returns the currently display properties as a properties object.
+   * Creates the editor for the property and adds it.
    *
-   * @return		the properties
+   * @param key		the property
+   * @param value	the value of the property
    */
-  public Properties getProperties() {
-    Properties			result;
-    int				i;
-    Component			comp;
-    PropertyType		type;
-    JTextField			textfield;
+  protected void addPropertyEditor(String key, String value) {
     JCheckBox			checkbox;
     JSpinner			spinner;
+    PropertyType		type;
     DirectoryChooserPanel	dirPanel;
     FileChooserPanel		filePanel;
-    JComboBox			comboEnum;
-    String			key;
+    JComboBox			combo;
+    Component			comp;
+    String			help;
+    String			label;
 
-    result = new Properties();
+    type = fixPropertyType(key, getPropertyType(key));
+    help = getHelp(key);
 
-    for (i = 0; i < getPropertyCount(); i++) {
-      comp = getProperty(i);
-      key  = m_Identifiers.get(i);
-      type = getActualPropertyType(key);
+    m_ActualPropertyTypes.put(key, type);
+    label = hasLabel(key) ? getLabel(key) : key;
 
+    try {
       switch (type) {
-        case DOUBLE:
-          textfield = (JTextField) comp;
-          result.setProperty(key, textfield.getText());
+        case DOUBLE: {
+          final JTextField textfield = new JTextField(20);
+          textfield.setText(value);
+          textfield.setToolTipText(help);
+          textfield.setBorder(BORDER_VALID);
+          addProperty(key, label, textfield);
           break;
+        }
         case STRING:
-          textfield = (JTextField) comp;
-          result.setProperty(key, textfield.getText());
+          final JTextField textfield = new JTextField();
+          textfield.setText(value);
+          textfield.setToolTipText(help);
+          addProperty(key, label, textfield);
           break;
         case BOOLEAN:
-          checkbox = (JCheckBox) comp;
-          result.setProperty(key, "" + checkbox.isSelected());
+          checkbox = new JCheckBox();
+          checkbox.setSelected(Boolean.parseBoolean(value));
+          checkbox.setToolTipText(help);
+          addProperty(key, label, checkbox);
           break;
         case INTEGER:
-          spinner = (JSpinner) comp;
-          result.setProperty(key, "" + ((Number) spinner.getValue()).intValue());
+          spinner = new JSpinner();
+          spinner.setValue(Integer.parseInt(value));
+          spinner.setToolTipText(help);
+          addProperty(key, label, spinner);
           break;
         case LONG:
-          spinner = (JSpinner) comp;
-          result.setProperty(key, "" + ((Number) spinner.getValue()).longValue());
+          spinner = new JSpinner();
+          spinner.setValue(Long.parseLong(value));
+          spinner.setToolTipText(help);
+          addProperty(key, label, spinner);
           break;
         case DIRECTORY:
-          dirPanel = (DirectoryChooserPanel) comp;
-          result.setProperty(key, dirPanel.getCurrent().getPath());
-          break;
         case DIRECTORY_ABSOLUTE:
-          dirPanel = (DirectoryChooserPanel) comp;
-          result.setProperty(key, dirPanel.getCurrent().getAbsolutePath());
+          dirPanel = new DirectoryChooserPanel();
+          dirPanel.setCurrent(new File(value));
+          dirPanel.setPreferredSize(new Dimension(DEFAULT_WIDTH_CHOOSERS, dirPanel.getPreferredSize().height));
+          dirPanel.setToolTipText(help);
+          dirPanel.setInlineEditingEnabled(true);
+          addProperty(key, label, dirPanel);
           break;
         case FILE:
-          filePanel = (FileChooserPanel) comp;
-          result.setProperty(key, filePanel.getCurrent().getPath());
-          break;
         case FILE_ABSOLUTE:
-          filePanel = (FileChooserPanel) comp;
-          result.setProperty(key, filePanel.getCurrent().getAbsolutePath());
+          filePanel = new FileChooserPanel();
+          filePanel.setCurrent(new File(value));
+          filePanel.setPreferredSize(new Dimension(DEFAULT_WIDTH_CHOOSERS, filePanel.getPreferredSize().height));
+          filePanel.setToolTipText(help);
+          filePanel.setInlineEditingEnabled(true);
+          addProperty(key, label, filePanel);
           break;
         case LIST:
         case BLANK_SEPARATED_LIST_FIXED:
         case COMMA_SEPARATED_LIST_FIXED:
-          comboEnum = (JComboBox) comp;
-          if (comboEnum.getSelectedIndex() > -1)
-            result.setProperty(key, "" + comboEnum.getSelectedItem());
+          if (type == PropertyType.BLANK_SEPARATED_LIST_FIXED)
+            combo = new JComboBox(value.split(" "));
+          else if (type == PropertyType.COMMA_SEPARATED_LIST_FIXED)
+            combo = new JComboBox(value.split(","));
+          else
+            combo = new SearchableComboBox(getList(key));
+          combo.setSelectedItem(value);
+          combo.setToolTipText(help);
+          addProperty(key, label, combo);
+          break;
+        case CUSTOM_COMPONENT:
+          comp = getComponent(key);
+          setText(comp, value);
+          updateToolTipText(comp, help);
+          addProperty(key, label, getComponent(key));
           break;
-	case CUSTOM_COMPONENT:
-          result.setProperty(key, getText(comp));
-	  break;
         default:
           throw new IllegalStateException("Unhandled property type (property '" + key + "'): " + type);
       }
     }
+    catch (Exception e) {
+      System.err.println("Failed to set property/type: '" + key + "'/" + type);
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Returns the value of the property as string.
+   *
+   * @param key		the property
+   * @param comp	the component displaying the property
+   * @param type	the (actual) type of the property
+   * @return		the value, null if not set
+   */
+  protected String getPropertyValue(String key, Component comp, PropertyType type) {
+    JComboBox	comboEnum;
+
+    switch (type) {
+      case DOUBLE:
+      case STRING:
+	return ((JTextField) comp).getText();
+      case BOOLEAN:
+	return "" + ((JCheckBox) comp).isSelected();
+      case INTEGER:
+	return "" + ((Number) ((JSpinner) comp).getValue()).intValue();
+      case LONG:
+	return "" + ((Number) ((JSpinner) comp).getValue()).longValue();
+      case DIRECTORY:
+	return ((DirectoryChooserPanel) comp).getCurrent().getPath();
+      case DIRECTORY_ABSOLUTE:
+	return ((DirectoryChooserPanel) comp).getCurrent().getAbsolutePath();
+      case FILE:
+	return ((FileChooserPanel) comp).getCurrent().getPath();
+      case FILE_ABSOLUTE:
+	return ((FileChooserPanel) comp).getCurrent().getAbsolutePath();
+      case LIST:
+      case BLANK_SEPARATED_LIST_FIXED:
+      case COMMA_SEPARATED_LIST_FIXED:
+	comboEnum = (JComboBox) comp;
+	if (comboEnum.getSelectedIndex() > -1)
+	  return "" + comboEnum.getSelectedItem();
+	return null;
+      case CUSTOM_COMPONENT:
+	return getText(comp);
+      default:
+	throw new IllegalStateException("Unhandled property type (property '" + key + "'): " + type);
+    }
+  }
+
+  /**
+   * Returns the currently display properties as a properties object.
+   *
+   * @return		the properties
+   */
+  public Properties getProperties() {
+    Properties	result;
+    int		i;
+    String	key;
+    String	value;
+
+    result = new Properties();
+
+    for (i = 0; i < getPropertyCount(); i++) {
+      key   = m_Identifiers.get(i);
+      value = getPropertyValue(key, getProperty(i), getActualPropertyType(key));
+      if (value != null)
+	result.setProperty(key, value);
+    }
+
+    // properties of sections without editors yet
+    for (PropertySection section: m_Sections.values()) {
+      for (String k: section.getPendingKeys())
+	result.setProperty(k, m_CurrentValues.get(k));
+    }
 
     return result;
   }
 
+  /**
+   * Returns the keys of the properties that were changed since the last
+   * call of {@link #setProperties(Properties)} or {@link #clearChanges()}.
+   *
+   * @return		the changed keys
+   */
+  public Set<String> getChangedKeys() {
+    return new HashSet<>(m_ChangedKeys);
+  }
+
+  /**
+   * Returns whether any property was changed since the last call of
+   * {@link #setProperties(Properties)} or {@link #clearChanges()}.
+   *
+   * @return		true if changed
+   */
+  public boolean isChanged() {
+    return !m_ChangedKeys.isEmpty();
+  }
+
+  /**
+   * Returns only the properties that were changed since the last call of
+   * {@link #setProperties(Properties)} or {@link #clearChanges()}.
+   * Properties that have no value anymore are not included.
+   *
+   * @return		the changed properties
+   * @see		#getChangedKeys()
+   */
+  public Properties getChangedProperties() {
+    Properties	result;
+    String	value;
+
+    result = new Properties();
+    for (String key: m_ChangedKeys) {
+      value = m_CurrentValues.get(key);
+      if (value != null)
+	result.setProperty(key, value);
+    }
+
+    return result;
+  }
+
+  /**
+   * Uses the current values as new reference for determining changes,
+   * e.g., after the changed properties have been persisted.
+   */
+  public void clearChanges() {
+    m_OriginalValues.clear();
+    m_OriginalValues.putAll(m_CurrentValues);
+    m_ChangedKeys.clear();
+  }
+
+  /**
+   * Starts tracking the value of a newly added property. The value set via
+   * {@link #setProperties(Properties)} is used as reference for determining
+   * changes, otherwise the current value. The initial value gets
+   * validated immediately, only edits get validated with a delay.
+   *
+   * @param key		the property
+   * @param comp	the component displaying the property
+   */
+  protected void initPropertyValue(String key, Component comp) {
+    String	value;
+
+    addValueListenerTo(key, comp);
+    value = trackPropertyValue(key);
+    if (!m_OriginalValues.containsKey(key)) {
+      m_OriginalValues.put(key, value);
+      m_ChangedKeys.remove(key);
+    }
+    validateProperty(key);
+  }
+
+  /**
+   * Records the current value of the property, without notifying listeners.
+   *
+   * @param key		the property
+   * @return		the current value
+   */
+  protected String trackPropertyValue(String key) {
+    String	value;
+
+    try {
+      value = getPropertyValue(key, getProperty(key), getActualPropertyType(key));
+    }
+    catch (Exception e) {
+      value = null;
+    }
+    m_CurrentValues.put(key, value);
+    if (Objects.equals(m_OriginalValues.get(key), value))
+      m_ChangedKeys.remove(key);
+    else
+      m_ChangedKeys.add(key);
+
+    return value;
+  }
+
+  /**
+   * Gets called when the component of a property signals a change.
+   * Notifies the listeners if the value actually changed.
+   *
+   * @param key		the property
+   */
+  protected void propertyComponentChanged(String key) {
+    String	oldValue;
+    String	newValue;
+
+    if (m_SettingProperties || !m_IdentifierIndex.containsKey(key))
+      return;
+
+    scheduleValidation(key);
+    oldValue = m_CurrentValues.get(key);
+    newValue = trackPropertyValue(key);
+    if (!Objects.equals(oldValue, newValue))
+      notifyPropertyValueChangeListeners(key, oldValue, newValue);
+  }
+
+  /**
+   * Adds a listener to the component of a property that tracks changes
+   * of the property value.
+   *
+   * @param key		the property
+   * @param comp	the component to add the listener to
+   */
+  protected void addValueListenerTo(final String key, Component comp) {
+    final ChangeListener		changeListener;
+    final ActionListener		actionListener;
+    final DocumentListener		docListener;
+    final PropertyChangeListener	propListener;
+    final JTextComponent		text;
+
+    if (comp instanceof AbstractChooserPanel) {
+      final AbstractChooserPanel chooser = (AbstractChooserPanel) comp;
+      changeListener = (ChangeEvent e) -> propertyComponentChanged(key);
+      chooser.addChangeListener(changeListener);
+      m_ValueListenerRemovers.put(key, () -> chooser.removeChangeListener(changeListener));
+    }
+    else if (comp instanceof JTextComponent) {
+      text = (JTextComponent) comp;
+      docListener = new DocumentListener() {
+	@Override
+	public void insertUpdate(DocumentEvent e) {
+	  propertyComponentChanged(key);
+	}
+	@Override
+	public void removeUpdate(DocumentEvent e) {
+	  propertyComponentChanged(key);
+	}
+	@Override
+	public void changedUpdate(DocumentEvent e) {
+	  propertyComponentChanged(key);
+	}
+      };
+      text.getDocument().addDocumentListener(docListener);
+      m_ValueListenerRemovers.put(key, () -> text.getDocument().removeDocumentListener(docListener));
+    }
+    else if (comp instanceof AbstractButton) {
+      final AbstractButton button = (AbstractButton) comp;
+      actionListener = (ActionEvent e) -> propertyComponentChanged(key);
+      button.addActionListener(actionListener);
+      m_ValueListenerRemovers.put(key, () -> button.removeActionListener(actionListener));
+    }
+    else if (comp instanceof JComboBox) {
+      final JComboBox combo = (JComboBox) comp;
+      actionListener = (ActionEvent e) -> propertyComponentChanged(key);
+      combo.addActionListener(actionListener);
+      m_ValueListenerRemovers.put(key, () -> combo.removeActionListener(actionListener));
+    }
+    else if (comp instanceof JSpinner) {
+      final JSpinner spinner = (JSpinner) comp;
+      changeListener = (ChangeEvent e) -> propertyComponentChanged(key);
+      spinner.addChangeListener(changeListener);
+      // the editor's text gets monitored for validation
+      text = getValidationTarget(comp) instanceof JTextComponent ? (JTextComponent) getValidationTarget(comp) : null;
+      docListener = new DocumentListener() {
+	@Override
+	public void insertUpdate(DocumentEvent e) {
+	  scheduleValidation(key);
+	}
+	@Override
+	public void removeUpdate(DocumentEvent e) {
+	  scheduleValidation(key);
+	}
+	@Override
+	public void changedUpdate(DocumentEvent e) {
+	  scheduleValidation(key);
+	}
+      };
+      if (text != null)
+	text.getDocument().addDocumentListener(docListener);
+      m_ValueListenerRemovers.put(key, () -> {
+	spinner.removeChangeListener(changeListener);
+	if (text != null)
+	  text.getDocument().removeDocumentListener(docListener);
+      });
+    }
+    else if (comp instanceof PropertyEditor) {
+      final PropertyEditor editor = (PropertyEditor) comp;
+      propListener = (PropertyChangeEvent e) -> propertyComponentChanged(key);
+      editor.addPropertyChangeListener(propListener);
+      m_ValueListenerRemovers.put(key, () -> editor.removePropertyChangeListener(propListener));
+    }
+  }
+
+  /**
+   * Returns the executor for expensive validations.
+   *
+   * @return		the executor
+   */
+  protected static synchronized ExecutorService getValidationExecutor() {
+    if (m_ValidationExecutor == null)
+      m_ValidationExecutor = ThreadUtils.newExecutor("PropertiesParameterPanel-validation", MAX_VALIDATORS);
+    return m_ValidationExecutor;
+  }
+
+  /**
+   * Associates the validator with the specified property, overriding the
+   * default validator of the property type.
+   *
+   * @param property	the property to associate the validator with
+   * @param value	the validator, null to remove
+   * @see		#getDefaultValidator(PropertyType)
+   */
+  public void setValidator(String property, PropertyValidator value) {
+    if (value == null)
+      m_Validators.remove(property);
+    else
+      m_Validators.put(property, value);
+  }
+
+  /**
+   * Checks whether a validator has been specified for a particular property.
+   *
+   * @param property	the property to check
+   * @return		true if a validator has been specified
+   */
+  public boolean hasValidator(String property) {
+    return m_Validators.containsKey(property)
+      || ((m_Schema != null) && (m_Schema.getValidator(property) != null));
+  }
+
+  /**
+   * Returns the validator associated with a particular property.
+   *
+   * @param property	the property to get the validator for
+   * @return		the validator, null if none specified
+   */
+  public PropertyValidator getValidator(String property) {
+    if (!m_Validators.containsKey(property) && (m_Schema != null))
+      return m_Schema.getValidator(property);
+    return m_Validators.get(property);
+  }
+
+  /**
+   * Returns the default validator for the property type.
+   *
+   * @param type	the property type
+   * @return		the validator, null if none
+   */
+  protected PropertyValidator getDefaultValidator(PropertyType type) {
+    switch (type) {
+      case DOUBLE:
+	return PropertyValidator.DOUBLE;
+      case INTEGER:
+	return PropertyValidator.INTEGER;
+      case LONG:
+	return PropertyValidator.LONG;
+      default:
+	return null;
+    }
+  }
+
+  /**
+   * Returns the validator to use for the property.
+   *
+   * @param key		the property
+   * @return		the validator, null if none
+   */
+  protected PropertyValidator getEffectiveValidator(String key) {
+    if (hasValidator(key))
+      return getValidator(key);
+    else
+      return getDefaultValidator(getActualPropertyType(key));
+  }
+
+  /**
+   * Sets the delay before validating an edited property.
+   *
+   * @param value	the delay in msec
+   */
+  public void setValidationDelay(int value) {
+    m_ValidationDelay = value;
+    for (Timer timer: m_ValidationTimers.values())
+      timer.setInitialDelay(value);
+  }
+
+  /**
+   * Returns the delay before validating an edited property.
+   *
+   * @return		the delay in msec
+   */
+  public int getValidationDelay() {
+    return m_ValidationDelay;
+  }
+
+  /**
+   * Returns the component that gets decorated with the validation state.
+   *
+   * @param comp	the component of the property
+   * @return		the component to decorate, null if none
+   */
+  protected JComponent getValidationTarget(Component comp) {
+    if ((comp instanceof JSpinner) && (((JSpinner) comp).getEditor() instanceof JSpinner.DefaultEditor))
+      return ((JSpinner.DefaultEditor) ((JSpinner) comp).getEditor()).getTextField();
+    else if (comp instanceof JComponent)
+      return (JComponent) comp;
+    else
+      return null;
+  }
+
+  /**
+   * Schedules the validation of the property, restarting the debounce
+   * timer of the property.
+   *
+   * @param key		the property to validate
+   */
+  protected void scheduleValidation(final String key) {
+    Timer	timer;
+
+    if (getEffectiveValidator(key) == null)
+      return;
+
+    timer = m_ValidationTimers.get(key);
+    if (timer == null) {
+      timer = new Timer(m_ValidationDelay, (ActionEvent e) -> validateProperty(key));
+      timer.setRepeats(false);
+      m_ValidationTimers.put(key, timer);
+    }
+    timer.restart();
+  }
+
+  /**
+   * Validates the property. Expensive validators get executed in the
+   * background.
+   *
+   * @param key		the property to validate
+   */
+  protected void validateProperty(final String key) {
+    final PropertyValidator	validator;
+    final Component		comp;
+    final String		value;
+    JComponent			target;
+
+    validator = getEffectiveValidator(key);
+    comp      = getProperty(key);
+    if ((validator == null) || (comp == null))
+      return;
+
+    target = getValidationTarget(comp);
+    if ((comp instanceof JSpinner) && (target instanceof JFormattedTextField) && !((JFormattedTextField) target).isEditValid()) {
+      applyValidation(key, comp, "Not a valid number: " + ((JFormattedTextField) target).getText());
+      return;
+    }
+
+    try {
+      value = getPropertyValue(key, comp, getActualPropertyType(key));
+    }
+    catch (Exception e) {
+      applyValidation(key, comp, "Failed to obtain value: " + e);
+      return;
+    }
+
+    if (validator.isExpensive()) {
+      getValidationExecutor().submit(() -> {
+	String error = validator.validate(value);
+	SwingUtilities.invokeLater(() -> {
+	  // still the same component and value?
+	  if ((getProperty(key) == comp) && Objects.equals(m_CurrentValues.get(key), value))
+	    applyValidation(key, comp, error);
+	});
+      });
+    }
+    else {
+      applyValidation(key, comp, validator.validate(value));
+    }
+  }
+
+  /**
+   * Decorates the component of the property with the validation result.
+   *
+   * @param key		the property
+   * @param comp	the component of the property
+   * @param error	the error, null if valid
+   */
+  protected void applyValidation(String key, Component comp, String error) {
+    JComponent	target;
+
+    target = getValidationTarget(comp);
+    if (target == null)
+      return;
+    if (!m_ValidBorders.containsKey(key))
+      m_ValidBorders.put(key, target.getBorder());
+
+    if (error == null) {
+      m_ValidationErrors.remove(key);
+      target.setBorder(m_ValidBorders.get(key));
+      target.setToolTipText(getHelp(key));
+    }
+    else {
+      m_ValidationErrors.put(key, error);
+      target.setBorder(BORDER_INVALID);
+      target.setToolTipText(error);
+    }
+  }
+
+  /**
+   * Returns whether any property currently has an invalid value.
+   *
+   * @return		true if at least one invalid value
+   */
+  public boolean hasValidationErrors() {
+    return !m_ValidationErrors.isEmpty();
+  }
+
+  /**
+   * Returns the validation errors of the properties.
+   *
+   * @return		the property/error relation
+   */
+  public Map<String,String> getValidationErrors() {
+    return new HashMap<>(m_ValidationErrors);
+  }
+
+  /**
+   * Adds the listener for property value changes.
+   *
+   * @param l		the listener to add
+   */
+  public void addPropertyValueChangeListener(PropertyValueChangeListener l) {
+    m_PropertyValueChangeListeners.add(l);
+  }
+
+  /**
+   * Removes the listener for property value changes.
+   *
+   * @param l		the listener to remove
+   */
+  public void removePropertyValueChangeListener(PropertyValueChangeListener l) {
+    m_PropertyValueChangeListeners.remove(l);
+  }
+
+  /**
+   * Notifies the listeners for property value changes.
+   *
+   * @param key		the property that changed
+   * @param oldValue	the previous value
+   * @param newValue	the new value
+   */
+  protected void notifyPropertyValueChangeListeners(String key, String oldValue, String newValue) {
+    for (PropertyValueChangeListener l: m_PropertyValueChangeListeners)
+      l.propertyValueChanged(this, key, oldValue, newValue);
+  }
+
   /**
    * Returns the file chooser to use for loading/saving of props files.
    *
@@ -845,63 +2097,218 @@ public class PropertiesParameterPanel
    * Loads properties from a file, prompts the user to select props file.
    */
   protected void loadProperties() {
-    int			retVal;
-    Properties		props;
-    FileReader		freader;
-    BufferedReader	breader;
+    int		retVal;
 
     retVal = getFileChooser().showOpenDialog(this);
     if (retVal != BaseFileChooser.APPROVE_OPTION)
       return;
 
-    freader = null;
-    breader = null;
-    props   = new Properties();
-    try {
-      freader = new FileReader(getFileChooser().getSelectedFile().getAbsolutePath());
-      breader = new BufferedReader(freader);
-      props.load(breader);
-    }
-    catch (Exception e) {
-      GUIHelper.showErrorMessage(this, "Failed to load properties from: " + getFileChooser().getSelectedFile());
-      return;
-    }
-    finally {
-      FileUtils.closeQuietly(breader);
-      FileUtils.closeQuietly(freader);
-    }
-
-    setProperties(props);
+    loadProperties(getFileChooser().getSelectedFile());
   }
 
   /**
    * Saves properties to a file, prompts the user to select props file.
    */
   protected void saveProperties() {
-    int			retVal;
-    Properties		props;
-    FileWriter		fwriter;
-    BufferedWriter	bwriter;
+    int		retVal;
 
     retVal = getFileChooser().showSaveDialog(this);
     if (retVal != BaseFileChooser.APPROVE_OPTION)
       return;
 
-    fwriter = null;
-    bwriter = null;
-    props   = getProperties();
-    try {
-      fwriter = new FileWriter(getFileChooser().getSelectedFile().getAbsolutePath());
-      bwriter = new BufferedWriter(fwriter);
-      props.store(bwriter, null);
-    }
-    catch (Exception e) {
-      GUIHelper.showErrorMessage(this, "Failed to save properties to: " + getFileChooser().getSelectedFile());
-    }
-    finally {
-      FileUtils.closeQuietly(bwriter);
-      FileUtils.closeQuietly(fwriter);
-    }
+    saveProperties(getFileChooser().getSelectedFile());
+  }
+
+  /**
+   * Returns whether a file is currently being loaded or saved.
+   *
+   * @return		true if loading/saving
+   */
+  public boolean isIOInProgress() {
+    return (m_WorkerIO != null);
+  }
+
+  /**
+   * Cancels the current load/save operation, if any.
+   */
+  public void cancelIO() {
+    if (m_WorkerIO != null)
+      m_WorkerIO.cancel(true);
+  }
+
+  /**
+   * Updates the widgets when starting/finishing a load/save operation.
+   *
+   * @param worker	the worker that started, null if finished
+   */
+  protected void setWorkerIO(SwingWorker<?,?> worker) {
+    m_WorkerIO = worker;
+    m_ButtonLoad.setEnabled(worker == null);
+    m_ButtonSave.setEnabled(worker == null);
+    m_ProgressIO.setValue(0);
+    m_ProgressIO.setIndeterminate(false);
+    m_ProgressIO.setVisible(worker != null);
+    m_ButtonCancelIO.setVisible(worker != null);
+    if (worker != null)
+      worker.addPropertyChangeListener((PropertyChangeEvent e) -> {
+	if (e.getPropertyName().equals("progress"))
+	  m_ProgressIO.setValue((Integer) e.getNewValue());
+      });
+  }
+
+  /**
+   * Loads the properties from the file in the background and applies them
+   * once fully parsed. Can be cancelled via {@link #cancelIO()}.
+   *
+   * @param file	the file to load
+   */
+  public void loadProperties(final File file) {
+    SwingWorker<Properties,Void>	worker;
+
+    if (isIOInProgress())
+      return;
+
+    worker = new SwingWorker<Properties,Void>() {
+      @Override
+      protected Properties doInBackground() throws Exception {
+	Properties	result;
+	final long	total;
+	InputStream	stream;
+	BufferedReader	reader;
+
+	result = new Properties();
+	total  = Math.max(1, file.length());
+	stream = null;
+	reader = null;
+	try {
+	  stream = new FilterInputStream(new FileInputStream(file)) {
+	    protected long m_Read = 0;
+	    protected void update(int read) throws IOException {
+	      if (isCancelled())
+		throw new InterruptedIOException("Loading cancelled");
+	      if (read > 0) {
+		m_Read += read;
+		setProgress((int) Math.min(100, m_Read * 100 / total));
+	      }
+	    }
+	    @Override
+	    public int read() throws IOException {
+	      int b = super.read();
+	      update((b == -1) ? 0 : 1);
+	      return b;
+	    }
+	    @Override
+	    public int read(byte[] b, int off, int len) throws IOException {
+	      int read = super.read(b, off, len);
+	      update(read);
+	      return read;
+	    }
+	  };
+	  reader = new BufferedReader(new InputStreamReader(stream));
+	  result.load(reader);
+	}
+	finally {
+	  FileUtils.closeQuietly(reader);
+	  FileUtils.closeQuietly(stream);
+	}
+
+	return result;
+      }
+
+      @Override
+      protected void done() {
+	setWorkerIO(null);
+	if (isCancelled())
+	  return;
+	try {
+	  setProperties(get());
+	}
+	catch (Exception e) {
+	  GUIHelper.showErrorMessage(PropertiesParameterPanel.this, "Failed to load properties from: " + file, e);
+	}
+      }
+    };
+    setWorkerIO(worker);
+    worker.execute();
+  }
+
+  /**
+   * Saves the current properties to the file in the background. The
+   * properties are written to a temporary file first, which then replaces
+   * the target file (atomically if supported), i.e., the target never
+   * contains partially written content. Can be cancelled via
+   * {@link #cancelIO()}.
+   *
+   * @param file	the file to save to
+   */
+  public void saveProperties(final File file) {
+    SwingWorker<Void,Void>	worker;
+    final Properties		props;
+
+    if (isIOInProgress())
+      return;
+
+    props  = getProperties();
+    worker = new SwingWorker<Void,Void>() {
+      @Override
+      protected Void doInBackground() throws Exception {
+	File			dir;
+	File			tmp;
+	FileOutputStream	stream;
+	BufferedWriter		writer;
+	boolean			moved;
+
+	dir    = file.getAbsoluteFile().getParentFile();
+	tmp    = File.createTempFile("." + file.getName() + "-", ".tmp", dir);
+	stream = null;
+	writer = null;
+	moved  = false;
+	try {
+	  stream = new FileOutputStream(tmp);
+	  writer = new BufferedWriter(new OutputStreamWriter(stream));
+	  props.store(writer, null);
+	  writer.flush();
+	  stream.getFD().sync();
+	  writer.close();
+	  writer = null;
+	  stream = null;
+	  setProgress(50);
+	  if (isCancelled())
+	    return null;
+	  try {
+	    FileUtils.copyOrMove(tmp, file.getAbsoluteFile(), true, true);
+	  }
+	  catch (AtomicMoveNotSupportedException e) {
+	    FileUtils.copyOrMove(tmp, file.getAbsoluteFile(), true, false);
+	  }
+	  moved = true;
+	  setProgress(100);
+	}
+	finally {
+	  FileUtils.closeQuietly(writer);
+	  FileUtils.closeQuietly(stream);
+	  if (!moved)
+	    tmp.delete();
+	}
+
+	return null;
+      }
+
+      @Override
+      protected void done() {
+	setWorkerIO(null);
+	if (isCancelled())
+	  return;
+	try {
+	  get();
+	}
+	catch (Exception e) {
+	  GUIHelper.showErrorMessage(PropertiesParameterPanel.this, "Failed to save properties to: " + file, e);
+	}
+      }
+    };
+    setWorkerIO(worker);
+    worker.execute();
   }
 
   /**
@@ -928,7 +2335,12 @@ public class PropertiesParameterPanel
    * @param l		the change listener
    */
   public void addChangeListener(ChangeListener l) {
+    m_ChangeListeners.add(l);
     m_PanelProperties.addChangeListener(l);
+    for (PropertySection section: m_Sections.values()) {
+      if (section.isBuilt())
+	section.getPanel().addChangeListener(l);
+    }
   }
 
   /**
@@ -937,6 +2349,11 @@ public class PropertiesParameterPanel
    * @param l		the change listener
    */
   public void removeChangeListener(ChangeListener l) {
+    m_ChangeListeners.remove(l);
     m_PanelProperties.removeChangeListener(l);
+    for (PropertySection section: m_Sections.values()) {
+      if (section.isBuilt())
+	section.getPanel().removeChangeListener(l);
+    }
   }
 }
\ No newline at end of file
@@ -0,0 +1,406 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * PropertySchema.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package nz.ac.waikato.cms.gui.core;
+
+import nz.ac.waikato.cms.gui.core.PropertiesParameterPanel.PropertyType;
+
+import java.awt.Component;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable description of properties (types, labels, help, lists, order,
+ * validators, editor and chooser factories) that can be shared across multiple
+ * {@link PropertiesParameterPanel} instances. Use the {@link Builder} to
+ * create a schema.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ * @see PropertiesParameterPanel#setSchema(PropertySchema)
+ */
+public class PropertySchema {
+
+  /**
+   * Interface for factories that create custom editor components. As the
+   * schema is shared, each panel needs its own component instance.
+   */
+  public interface EditorFactory {
+
+    /**
+     * Creates a new editor component. Must have setText(String) and
+     * getText() methods.
+     *
+     * @return		the component
+     */
+    public Component createEditor();
+  }
+
+  /**
+   * Interface for factories that create chooser panels. As the schema is
+   * shared, each panel needs its own chooser instance.
+   */
+  public interface ChooserFactory {
+
+    /**
+     * Creates a new chooser panel.
+     *
+     * @return		the chooser
+     */
+    public AbstractChooserPanel<?> createChooser();
+  }
+
+  /**
+   * For building a schema.
+   */
+  public static class Builder {
+
+    /** the types. */
+    protected Map<String,PropertyType> m_Types = new HashMap<>();
+
+    /** the labels. */
+    protected Map<String,String> m_Labels = new HashMap<>();
+
+    /** the help. */
+    protected Map<String,String> m_Help = new HashMap<>();
+
+    /** the lists. */
+    protected Map<String,String[]> m_Lists = new HashMap<>();
+
+    /** the validators. */
+    protected Map<String,PropertyValidator> m_Validators = new HashMap<>();
+
+    /** the editor factories. */
+    protected Map<String,EditorFactory> m_EditorFactories = new HashMap<>();
+
+    /** the chooser factories. */
+    protected Map<String,ChooserFactory> m_ChooserFactories = new HashMap<>();
+
+    /** the order. */
+    protected List<String> m_Order = new ArrayList<>();
+
+    /**
+     * Sets the type of the property.
+     *
+     * @param property	the property
+     * @param type	the type
+     * @return		itself
+     */
+    public Builder type(String property, PropertyType type) {
+      m_Types.put(property, type);
+      return this;
+    }
+
+    /**
+     * Sets the label of the property.
+     *
+     * @param property	the property
+     * @param label	the label
+     * @return		itself
+     */
+    public Builder label(String property, String label) {
+      m_Labels.put(property, label);
+      return this;
+    }
+
+    /**
+     * Sets the help of the property.
+     *
+     * @param property	the property
+     * @param help	the help
+     * @return		itself
+     */
+    public Builder help(String property, String help) {
+      m_Help.put(property, help);
+      return this;
+    }
+
+    /**
+     * Sets the list of values of the property (for {@link PropertyType#LIST}).
+     *
+     * @param property	the property
+     * @param list	the values
+     * @return		itself
+     */
+    public Builder list(String property, String[] list) {
+      m_Lists.put(property, list.clone());
+      return this;
+    }
+
+    /**
+     * Sets the validator of the property.
+     *
+     * @param property	the property
+     * @param validator	the validator
+     * @return		itself
+     */
+    public Builder validator(String property, PropertyValidator validator) {
+      m_Validators.put(property, validator);
+      return this;
+    }
+
+    /**
+     * Sets the editor factory of the property
+     * (for {@link PropertyType#CUSTOM_COMPONENT}).
+     *
+     * @param property	the property
+     * @param factory	the factory
+     * @return		itself
+     */
+    public Builder editor(String property, EditorFactory factory) {
+      m_EditorFactories.put(property, factory);
+      return this;
+    }
+
+    /**
+     * Sets the chooser factory of the property.
+     *
+     * @param property	the property
+     * @param factory	the factory
+     * @return		itself
+     */
+    public Builder chooser(String property, ChooserFactory factory) {
+      m_ChooserFactories.put(property, factory);
+      return this;
+    }
+
+    /**
+     * Sets the order of the properties.
+     *
+     * @param order	the ordered property names
+     * @return		itself
+     */
+    public Builder order(String... order) {
+      return order(Arrays.asList(order));
+    }
+
+    /**
+     * Sets the order of the properties.
+     *
+     * @param order	the ordered property names
+     * @return		itself
+     */
+    public Builder order(List<String> order) {
+      m_Order.clear();
+      m_Order.addAll(order);
+      return this;
+    }
+
+    /**
+     * Builds the schema.
+     *
+     * @return		the schema
+     */
+    public PropertySchema build() {
+      return new PropertySchema(this);
+    }
+  }
+
+  /** the types. */
+  protected final Map<String,PropertyType> m_Types;
+
+  /** the labels. */
+  protected final Map<String,String> m_Labels;
+
+  /** the help. */
+  protected final Map<String,String> m_Help;
+
+  /** the lists. */
+  protected final Map<String,String[]> m_Lists;
+
+  /** the validators. */
+  protected final Map<String,PropertyValidator> m_Validators;
+
+  /** the editor factories. */
+  protected final Map<String,EditorFactory> m_EditorFactories;
+
+  /** the chooser factories. */
+  protected final Map<String,ChooserFactory> m_ChooserFactories;
+
+  /** the order. */
+  protected final List<String> m_Order;
+
+  /** all the properties known to the schema. */
+  protected final Set<String> m_Keys;
+
+  /** the presorted properties (order first, then remaining alphabetically). */
+  protected final List<String> m_SortedKeys;
+
+  /**
+   * Initializes the schema from the builder.
+   *
+   * @param builder	the builder to use
+   */
+  protected PropertySchema(Builder builder) {
+    List<String>	remaining;
+
+    m_Types            = Collections.unmodifiableMap(new HashMap<>(builder.m_Types));
+    m_Labels           = Collections.unmodifiableMap(new HashMap<>(builder.m_Labels));
+    m_Help             = Collections.unmodifiableMap(new HashMap<>(builder.m_Help));
+    m_Lists            = Collections.unmodifiableMap(new HashMap<>(builder.m_Lists));
+    m_Validators       = Collections.unmodifiableMap(new HashMap<>(builder.m_Validators));
+    m_EditorFactories  = Collections.unmodifiableMap(new HashMap<>(builder.m_EditorFactories));
+    m_ChooserFactories = Collections.unmodifiableMap(new HashMap<>(builder.m_ChooserFactories));
+    m_Order            = Collections.unmodifiableList(new ArrayList<>(builder.m_Order));
+
+    m_Keys = new HashSet<>();
+    m_Keys.addAll(m_Types.keySet());
+    m_Keys.addAll(m_Labels.keySet());
+    m_Keys.addAll(m_Help.keySet());
+    m_Keys.addAll(m_Lists.keySet());
+    m_Keys.addAll(m_Validators.keySet());
+    m_Keys.addAll(m_EditorFactories.keySet());
+    m_Keys.addAll(m_ChooserFactories.keySet());
+    m_Keys.addAll(m_Order);
+
+    remaining = new ArrayList<>(m_Keys);
+    remaining.removeAll(m_Order);
+    Collections.sort(remaining);
+    remaining.addAll(0, m_Order);
+    m_SortedKeys = Collections.unmodifiableList(remaining);
+  }
+
+  /**
+   * Returns the type of the property.
+   *
+   * @param property	the property
+   * @return		the type, null if not specified
+   */
+  public PropertyType getType(String property) {
+    return m_Types.get(property);
+  }
+
+  /**
+   * Returns the label of the property.
+   *
+   * @param property	the property
+   * @return		the label, null if not specified
+   */
+  public String getLabel(String property) {
+    return m_Labels.get(property);
+  }
+
+  /**
+   * Returns the help of the property.
+   *
+   * @param property	the property
+   * @return		the help, null if not specified
+   */
+  public String getHelp(String property) {
+    return m_Help.get(property);
+  }
+
+  /**
+   * Returns whether a list of values has been specified for the property.
+   *
+   * @param property	the property
+   * @return		true if a list is available
+   */
+  public boolean hasList(String property) {
+    return m_Lists.containsKey(property);
+  }
+
+  /**
+   * Returns the list of values of the property. The array is shared by all
+   * panels using the schema (no copy gets made), it must not be modified.
+   *
+   * @param property	the property
+   * @return		the list (read-only), null if not specified
+   */
+  public String[] getList(String property) {
+    return m_Lists.get(property);
+  }
+
+  /**
+   * Returns the validator of the property.
+   *
+   * @param property	the property
+   * @return		the validator, null if not specified
+   */
+  public PropertyValidator getValidator(String property) {
+    return m_Validators.get(property);
+  }
+
+  /**
+   * Returns the editor factory of the property.
+   *
+   * @param property	the property
+   * @return		the factory, null if not specified
+   */
+  public EditorFactory getEditorFactory(String property) {
+    return m_EditorFactories.get(property);
+  }
+
+  /**
+   * Returns the chooser factory of the property.
+   *
+   * @param property	the property
+   * @return		the factory, null if not specified
+   */
+  public ChooserFactory getChooserFactory(String property) {
+    return m_ChooserFactories.get(property);
+  }
+
+  /**
+   * Returns the order of the properties.
+   *
+   * @return		the ordered property names
+   */
+  public List<String> getOrder() {
+    return m_Order;
+  }
+
+  /**
+   * Returns all the properties known to the schema.
+   *
+   * @return		the properties
+   */
+  public Set<String> getKeys() {
+    return Collections.unmodifiableSet(m_Keys);
+  }
+
+  /**
+   * Orders the property names: properties from the custom order come first,
+   * followed by the remaining ones sorted alphabetically. If the names
+   * match the properties known to the schema, the presorted list is
+   * returned without sorting.
+   *
+   * @param names	the property names to order
+   * @return		the ordered names
+   */
+  public List<String> sortKeys(Set<String> names) {
+    List<String>	result;
+
+    if ((names.size() == m_Keys.size()) && m_Keys.containsAll(names))
+      return new ArrayList<>(m_SortedKeys);
+
+    result = new ArrayList<>(names);
+    result.removeAll(m_Order);
+    Collections.sort(result);
+    result.addAll(0, m_Order);
+
+    return result;
+  }
+}
@@ -0,0 +1,339 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * PropertyValidator.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package nz.ac.waikato.cms.gui.core;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Interface for validators of property values, as used by the
+ * {@link PropertiesParameterPanel}. Implementations must be immutable
+ * (or thread-safe), as instances are shared across editors and expensive
+ * validators get executed in a background thread.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public interface PropertyValidator {
+
+  /**
+   * Validates a double value, within the specified bounds (inclusive).
+   * Empty strings are considered valid.
+   */
+  public static class DoubleRange
+    implements PropertyValidator {
+
+    /** the minimum. */
+    protected final double m_Min;
+
+    /** the maximum. */
+    protected final double m_Max;
+
+    /**
+     * Initializes the validator.
+     *
+     * @param min	the minimum (incl)
+     * @param max	the maximum (incl)
+     */
+    public DoubleRange(double min, double max) {
+      m_Min = min;
+      m_Max = max;
+    }
+
+    /**
+     * Validates the value.
+     *
+     * @param value	the value to validate, can be null
+     * @return		null if valid, otherwise error message
+     */
+    @Override
+    public String validate(String value) {
+      double	d;
+
+      if ((value == null) || value.isEmpty())
+	return null;
+      try {
+	d = Double.parseDouble(value);
+      }
+      catch (Exception e) {
+	return "Not a valid number: " + value;
+      }
+      if ((d < m_Min) || (d > m_Max))
+	return "Value outside [" + m_Min + ", " + m_Max + "]: " + value;
+      return null;
+    }
+
+    /**
+     * Returns whether validation is expensive.
+     *
+     * @return		always false
+     */
+    @Override
+    public boolean isExpensive() {
+      return false;
+    }
+  }
+
+  /**
+   * Validates an integer/long value, within the specified bounds (inclusive).
+   * Empty strings are considered valid.
+   */
+  public static class LongRange
+    implements PropertyValidator {
+
+    /** the minimum. */
+    protected final long m_Min;
+
+    /** the maximum. */
+    protected final long m_Max;
+
+    /**
+     * Initializes the validator.
+     *
+     * @param min	the minimum (incl)
+     * @param max	the maximum (incl)
+     */
+    public LongRange(long min, long max) {
+      m_Min = min;
+      m_Max = max;
+    }
+
+    /**
+     * Validates the value.
+     *
+     * @param value	the value to validate, can be null
+     * @return		null if valid, otherwise error message
+     */
+    @Override
+    public String validate(String value) {
+      long	l;
+
+      if ((value == null) || value.isEmpty())
+	return null;
+      try {
+	l = Long.parseLong(value);
+      }
+      catch (Exception e) {
+	return "Not a valid integer: " + value;
+      }
+      if ((l < m_Min) || (l > m_Max))
+	return "Value outside [" + m_Min + ", " + m_Max + "]: " + value;
+      return null;
+    }
+
+    /**
+     * Returns whether validation is expensive.
+     *
+     * @return		always false
+     */
+    @Override
+    public boolean isExpensive() {
+      return false;
+    }
+  }
+
+  /**
+   * Validates a value against a regular expression (full match).
+   */
+  public static class RegExp
+    implements PropertyValidator {
+
+    /** the compiled pattern. */
+    protected final Pattern m_Pattern;
+
+    /**
+     * Initializes the validator.
+     *
+     * @param regexp	the regular expression
+     */
+    public RegExp(String regexp) {
+      m_Pattern = Pattern.compile(regexp);
+    }
+
+    /**
+     * Validates the value.
+     *
+     * @param value	the value to validate, can be null
+     * @return		null if valid, otherwise error message
+     */
+    @Override
+    public String validate(String value) {
+      if ((value == null) || !m_Pattern.matcher(value).matches())
+	return "Does not match '" + m_Pattern.pattern() + "': " + value;
+      return null;
+    }
+
+    /**
+     * Returns whether validation is expensive.
+     *
+     * @return		always false
+     */
+    @Override
+    public boolean isExpensive() {
+      return false;
+    }
+  }
+
+  /**
+   * Validates that a file or directory exists. As this can be slow (e.g.,
+   * network shares), it is flagged as expensive and results are cached for
+   * a limited time.
+   */
+  public static class FileExists
+    implements PropertyValidator {
+
+    /** the default number of cached results. */
+    public final static int DEFAULT_CACHE_SIZE = 1000;
+
+    /** the default time in msec results stay valid. */
+    public final static long DEFAULT_CACHE_TIMEOUT = 10000;
+
+    /** whether the path must be a directory. */
+    protected final boolean m_Directory;
+
+    /** the maximum number of cached results. */
+    protected final int m_CacheSize;
+
+    /** the time in msec results stay valid. */
+    protected final long m_CacheTimeout;
+
+    /** the cached results (path - [timestamp, result]). */
+    protected final Map<String,Object[]> m_Cache;
+
+    /**
+     * Initializes the validator with default cache settings.
+     *
+     * @param directory	whether the path must be a directory
+     */
+    public FileExists(boolean directory) {
+      this(directory, DEFAULT_CACHE_SIZE, DEFAULT_CACHE_TIMEOUT);
+    }
+
+    /**
+     * Initializes the validator.
+     *
+     * @param directory		whether the path must be a directory
+     * @param cacheSize		the maximum number of cached results
+     * @param cacheTimeout	the time in msec results stay valid
+     */
+    public FileExists(boolean directory, final int cacheSize, long cacheTimeout) {
+      m_Directory    = directory;
+      m_CacheSize    = cacheSize;
+      m_CacheTimeout = cacheTimeout;
+      m_Cache        = new LinkedHashMap<String,Object[]>(16, 0.75f, true) {
+	private static final long serialVersionUID = 2926539478262233151L;
+	@Override
+	protected boolean removeEldestEntry(Map.Entry<String,Object[]> eldest) {
+	  return size() > cacheSize;
+	}
+      };
+    }
+
+    /**
+     * Validates the value.
+     *
+     * @param value	the value to validate, can be null
+     * @return		null if valid, otherwise error message
+     */
+    @Override
+    public String validate(String value) {
+      Object[]	cached;
+      String	result;
+      File	file;
+
+      if ((value == null) || value.isEmpty())
+	return "No path provided";
+
+      synchronized(m_Cache) {
+	cached = m_Cache.get(value);
+      }
+      if ((cached != null) && (System.currentTimeMillis() - (Long) cached[0] < m_CacheTimeout))
+	return (String) cached[1];
+
+      file = new File(value);
+      if (!file.exists())
+	result = (m_Directory ? "Directory" : "File") + " does not exist: " + value;
+      else if (m_Directory && !file.isDirectory())
+	result = "Not a directory: " + value;
+      else if (!m_Directory && file.isDirectory())
+	result = "Not a file: " + value;
+      else
+	result = null;
+
+      synchronized(m_Cache) {
+	m_Cache.put(value, new Object[]{System.currentTimeMillis(), result});
+      }
+
+      return result;
+    }
+
+    /**
+     * Returns whether validation is expensive.
+     *
+     * @return		always true
+     */
+    @Override
+    public boolean isExpensive() {
+      return true;
+    }
+
+    /**
+     * Removes all cached results.
+     */
+    public void clearCache() {
+      synchronized(m_Cache) {
+	m_Cache.clear();
+      }
+    }
+  }
+
+  /** the shared validator for doubles. */
+  public final static PropertyValidator DOUBLE = new DoubleRange(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+
+  /** the shared validator for integers. */
+  public final static PropertyValidator INTEGER = new LongRange(Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+  /** the shared validator for longs. */
+  public final static PropertyValidator LONG = new LongRange(Long.MIN_VALUE, Long.MAX_VALUE);
+
+  /** the shared validator for existing files. */
+  public final static PropertyValidator FILE_EXISTS = new FileExists(false);
+
+  /** the shared validator for existing directories. */
+  public final static PropertyValidator DIRECTORY_EXISTS = new FileExists(true);
+
+  /**
+   * Validates the value.
+   *
+   * @param value	the value to validate, can be null
+   * @return		null if valid, otherwise error message
+   */
+  public String validate(String value);
+
+  /**
+   * Returns whether validation is expensive (e.g., accesses the file
+   * system) and should therefore be performed in a background thread.
+   *
+   * @return		true if expensive
+   */
+  public boolean isExpensive();
+}
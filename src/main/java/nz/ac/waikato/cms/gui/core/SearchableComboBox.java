@@ -0,0 +1,510 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * SearchableComboBox.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package nz.ac.waikato.cms.gui.core;
+
+import javax.swing.AbstractListModel;
+import javax.swing.ComboBoxModel;
+import javax.swing.JComboBox;
+import javax.swing.event.PopupMenuEvent;
+import javax.swing.event.PopupMenuListener;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Non-editable combobox for (large) lists of strings. The model is a
+ * read-only view on the original array, i.e., the values don't get copied.
+ * The sorted index that is used for type-ahead filtering (by prefix, case
+ * insensitive) is computed once per array and shared across all comboboxes
+ * that use the same array (as long as any of them is in use). The longest
+ * value is used as prototype display value, avoiding measuring every entry.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class SearchableComboBox
+  extends JComboBox<String> {
+
+  private static final long serialVersionUID = 6082447265823409132L;
+
+  /** the time in msec after which typing starts a new prefix. */
+  public final static int TYPE_AHEAD_TIMEOUT = 1000;
+
+  /**
+   * Sorted (case-insensitive) index over an array of strings. Immutable
+   * and therefore shared across models using the same array.
+   */
+  public static class ListIndex {
+
+    /** the original values (not copied). */
+    protected final String[] m_Values;
+
+    /** the indices of the values, sorted by lower case value. */
+    protected final int[] m_Sorted;
+
+    /** the lower case values, in sorted order. */
+    protected final String[] m_Lower;
+
+    /** the longest value. */
+    protected final String m_Prototype;
+
+    /**
+     * Initializes the index.
+     *
+     * @param values	the values to index
+     */
+    protected ListIndex(String[] values) {
+      Integer[]	indices;
+      String[]	lower;
+      String	prototype;
+      int	i;
+
+      m_Values  = values;
+      lower     = new String[values.length];
+      indices   = new Integer[values.length];
+      prototype = "";
+      for (i = 0; i < values.length; i++) {
+	lower[i]   = (values[i] == null) ? "" : values[i].toLowerCase();
+	indices[i] = i;
+	if ((values[i] != null) && (values[i].length() > prototype.length()))
+	  prototype = values[i];
+      }
+      Arrays.sort(indices, (Integer o1, Integer o2) -> lower[o1].compareTo(lower[o2]));
+
+      m_Sorted = new int[values.length];
+      m_Lower  = new String[values.length];
+      for (i = 0; i < indices.length; i++) {
+	m_Sorted[i] = indices[i];
+	m_Lower[i]  = lower[indices[i]];
+      }
+      m_Prototype = prototype;
+    }
+
+    /**
+     * Returns the indexed values.
+     *
+     * @return		the values
+     */
+    public String[] getValues() {
+      return m_Values;
+    }
+
+    /**
+     * Returns the longest value, to be used as prototype display value.
+     *
+     * @return		the prototype
+     */
+    public String getPrototype() {
+      return m_Prototype;
+    }
+
+    /**
+     * Returns the first position in sorted order with a value that is
+     * greater or equal to the lower case key.
+     *
+     * @param key	the lower case key
+     * @return		the position
+     */
+    protected int lowerBound(String key) {
+      int	low;
+      int	high;
+      int	mid;
+
+      low  = 0;
+      high = m_Lower.length;
+      while (low < high) {
+	mid = (low + high) >>> 1;
+	if (m_Lower[mid].compareTo(key) < 0)
+	  low = mid + 1;
+	else
+	  high = mid;
+      }
+
+      return low;
+    }
+
+    /**
+     * Returns the range of sorted positions whose values start with the
+     * prefix (case-insensitive).
+     *
+     * @param prefix	the prefix
+     * @return		the range: first (incl), last (excl)
+     */
+    public int[] prefixRange(String prefix) {
+      String	lower;
+      int	from;
+      int	to;
+
+      lower = prefix.toLowerCase();
+      from  = lowerBound(lower);
+      // all strings starting with the prefix sort before prefix + max char
+      if (lower.isEmpty())
+	to = m_Lower.length;
+      else
+	to = lowerBound(lower + Character.MAX_VALUE);
+
+      return new int[]{from, to};
+    }
+
+    /**
+     * Returns the original index of the value at the sorted position.
+     *
+     * @param pos	the sorted position
+     * @return		the original index
+     */
+    public int getIndex(int pos) {
+      return m_Sorted[pos];
+    }
+
+    /**
+     * Returns the sorted position of the value.
+     *
+     * @param value	the value to look for
+     * @param from	the first sorted position to consider (incl)
+     * @param to	the last sorted position to consider (excl)
+     * @return		the sorted position, -1 if not found
+     */
+    public int positionOf(String value, int from, int to) {
+      String	lower;
+      int	pos;
+
+      lower = value.toLowerCase();
+      pos   = Math.max(from, lowerBound(lower));
+      while ((pos < to) && m_Lower[pos].equals(lower)) {
+	if (value.equals(m_Values[m_Sorted[pos]]))
+	  return pos;
+	pos++;
+      }
+
+      return -1;
+    }
+  }
+
+  /**
+   * Read-only model on top of a shared index. Each combobox needs its own
+   * model instance, as the selection and the filter are stored in the model.
+   */
+  public static class SearchableComboBoxModel
+    extends AbstractListModel<String>
+    implements ComboBoxModel<String> {
+
+    private static final long serialVersionUID = -1489405946315582140L;
+
+    /** the shared index. */
+    protected final ListIndex m_Index;
+
+    /** the current filter, null if none. */
+    protected String m_Filter;
+
+    /** the first sorted position of the filtered values. */
+    protected int m_From;
+
+    /** the last sorted position of the filtered values (excl). */
+    protected int m_To;
+
+    /** the selected item. */
+    protected Object m_SelectedItem;
+
+    /**
+     * Initializes the model. Like DefaultComboBoxModel, the first value
+     * is selected initially (if any).
+     *
+     * @param index	the shared index
+     */
+    public SearchableComboBoxModel(ListIndex index) {
+      m_Index        = index;
+      m_Filter       = null;
+      m_SelectedItem = (index.getValues().length > 0) ? index.getValues()[0] : null;
+    }
+
+    /**
+     * Returns the underlying index.
+     *
+     * @return		the index
+     */
+    public ListIndex getIndex() {
+      return m_Index;
+    }
+
+    /**
+     * Sets the prefix to filter the values with.
+     *
+     * @param value	the prefix, null or empty to remove the filter
+     * @return		the number of matching values
+     */
+    public int setFilter(String value) {
+      int[]	range;
+      int	size;
+
+      size = getSize();
+      if ((value == null) || value.isEmpty()) {
+	if (m_Filter == null)
+	  return getSize();
+	m_Filter = null;
+      }
+      else {
+	range    = m_Index.prefixRange(value);
+	m_Filter = value;
+	m_From   = range[0];
+	m_To     = range[1];
+      }
+      fireContentsChanged(this, 0, Math.max(size, getSize()) - 1);
+
+      return getSize();
+    }
+
+    /**
+     * Returns the current filter.
+     *
+     * @return		the prefix, null if none
+     */
+    public String getFilter() {
+      return m_Filter;
+    }
+
+    /**
+     * Returns the number of values (matching the filter).
+     *
+     * @return		the number of values
+     */
+    @Override
+    public int getSize() {
+      if (m_Filter == null)
+	return m_Index.getValues().length;
+      else
+	return m_To - m_From;
+    }
+
+    /**
+     * Returns the value at the specified position. Without filter, the
+     * original order is used, otherwise the sorted one.
+     *
+     * @param index	the position
+     * @return		the value
+     */
+    @Override
+    public String getElementAt(int index) {
+      if (m_Filter == null)
+	return m_Index.getValues()[index];
+      else
+	return m_Index.getValues()[m_Index.getIndex(m_From + index)];
+    }
+
+    /**
+     * Returns the position of the value (taking the filter into account).
+     *
+     * @param value	the value to look for
+     * @return		the position, -1 if not found
+     */
+    public int indexOf(Object value) {
+      int	pos;
+
+      if (!(value instanceof String))
+	return -1;
+      if (m_Filter == null) {
+	pos = m_Index.positionOf((String) value, 0, m_Index.getValues().length);
+	return (pos == -1) ? -1 : m_Index.getIndex(pos);
+      }
+      else {
+	pos = m_Index.positionOf((String) value, m_From, m_To);
+	return (pos == -1) ? -1 : pos - m_From;
+      }
+    }
+
+    /**
+     * Sets the selected item.
+     *
+     * @param anItem	the item, can be null
+     */
+    @Override
+    public void setSelectedItem(Object anItem) {
+      if ((m_SelectedItem != null && !m_SelectedItem.equals(anItem)) || (m_SelectedItem == null && anItem != null)) {
+	m_SelectedItem = anItem;
+	fireContentsChanged(this, -1, -1);
+      }
+    }
+
+    /**
+     * Returns the selected item.
+     *
+     * @return		the item, can be null
+     */
+    @Override
+    public Object getSelectedItem() {
+      return m_SelectedItem;
+    }
+  }
+
+  /**
+   * Key selection manager that accumulates the typed characters as prefix
+   * and filters the model with it.
+   */
+  protected class TypeAheadKeySelectionManager
+    implements KeySelectionManager {
+
+    /** the typed prefix. */
+    protected StringBuilder m_Prefix = new StringBuilder();
+
+    /** the time of the last typed character. */
+    protected long m_LastTyped;
+
+    /**
+     * Filters the model with the typed prefix.
+     * Java 8 declares the model parameter as raw type, later versions
+     * use {@code ComboBoxModel<?>}.
+     *
+     * @param aKey	the typed character
+     * @param aModel	the model
+     * @return		the index to select, -1 if none
+     */
+    @Override
+    @SuppressWarnings("rawtypes")
+    public int selectionForKey(char aKey, ComboBoxModel aModel) {
+      SearchableComboBoxModel	model;
+      long			now;
+
+      if (!(aModel instanceof SearchableComboBoxModel) || Character.isISOControl(aKey))
+	return -1;
+      model = (SearchableComboBoxModel) aModel;
+
+      now = System.currentTimeMillis();
+      if (now - m_LastTyped > TYPE_AHEAD_TIMEOUT)
+	m_Prefix.setLength(0);
+      m_LastTyped = now;
+      m_Prefix.append(aKey);
+
+      if (model.setFilter(m_Prefix.toString()) == 0) {
+	// no match, keep the previous prefix
+	m_Prefix.setLength(m_Prefix.length() - 1);
+	model.setFilter(m_Prefix.toString());
+	return -1;
+      }
+      if (isShowing() && !isPopupVisible())
+	showPopup();
+
+      return 0;
+    }
+
+    /**
+     * Resets the typed prefix.
+     */
+    public void reset() {
+      m_Prefix.setLength(0);
+    }
+  }
+
+  /** the shared indices (array - index), weak values as the indices reference the arrays. */
+  protected static final Map<String[],WeakReference<ListIndex>> m_Indices = Collections.synchronizedMap(new WeakHashMap<>());
+
+  /**
+   * Initializes the combobox with the values. The array must not be
+   * modified afterwards.
+   *
+   * @param values	the values
+   */
+  public SearchableComboBox(String[] values) {
+    super(new SearchableComboBoxModel(getIndex(values)));
+
+    final TypeAheadKeySelectionManager	manager;
+
+    manager = new TypeAheadKeySelectionManager();
+    setKeySelectionManager(manager);
+    setPrototypeDisplayValue(getModel().getIndex().getPrototype());
+    addPopupMenuListener(new PopupMenuListener() {
+      @Override
+      public void popupMenuWillBecomeVisible(PopupMenuEvent e) {
+      }
+      @Override
+      public void popupMenuWillBecomeInvisible(PopupMenuEvent e) {
+	manager.reset();
+	getModel().setFilter(null);
+      }
+      @Override
+      public void popupMenuCanceled(PopupMenuEvent e) {
+      }
+    });
+  }
+
+  /**
+   * Returns the (shared) index for the array, creates it if necessary.
+   * Arrays are compared by reference.
+   *
+   * @param values	the values
+   * @return		the index
+   */
+  public static ListIndex getIndex(String[] values) {
+    WeakReference<ListIndex>	ref;
+    ListIndex			result;
+
+    ref    = m_Indices.get(values);
+    result = (ref == null) ? null : ref.get();
+    if (result == null) {
+      result = new ListIndex(values);
+      m_Indices.put(values, new WeakReference<>(result));
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the model.
+   *
+   * @return		the model
+   */
+  @Override
+  public SearchableComboBoxModel getModel() {
+    return (SearchableComboBoxModel) super.getModel();
+  }
+
+  /**
+   * Returns the index of the selected item, uses the sorted index rather
+   * than a linear search.
+   *
+   * @return		the index, -1 if none selected
+   */
+  @Override
+  public int getSelectedIndex() {
+    if (!(dataModel instanceof SearchableComboBoxModel))
+      return super.getSelectedIndex();
+    return ((SearchableComboBoxModel) dataModel).indexOf(dataModel.getSelectedItem());
+  }
+
+  /**
+   * Selects the item, if it is part of the list, otherwise the current
+   * selection is kept. Uses the sorted index rather than a linear search.
+   *
+   * @param anObject	the item to select
+   */
+  @Override
+  public void setSelectedItem(Object anObject) {
+    SearchableComboBoxModel	model;
+
+    if (!(dataModel instanceof SearchableComboBoxModel)) {
+      super.setSelectedItem(anObject);
+      return;
+    }
+    model = (SearchableComboBoxModel) dataModel;
+    if ((anObject != null) && (!(anObject instanceof String) || (model.getIndex().positionOf((String) anObject, 0, model.getIndex().getValues().length) == -1)))
+      return;
+    model.setSelectedItem(anObject);
+  }
+}
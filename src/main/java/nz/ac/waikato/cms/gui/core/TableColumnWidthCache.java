@@ -0,0 +1,376 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * TableColumnWidthCache.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package nz.ac.waikato.cms.gui.core;
+
+import javax.swing.JTable;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import javax.swing.table.TableModel;
+import java.awt.Component;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.logging.Level;
+
+/**
+ * Caches the measured cell widths of a table's columns, so that optimizing
+ * the column widths again only measures the rows that were inserted or
+ * updated since the last calculation. Listens to the {@link TableModelEvent}s
+ * of the table's model: inserted and updated rows get measured on the next
+ * request (at most {@link JTableHelper#MAX_ROWS} per event), deleted rows
+ * are removed. The maximum width per column is maintained with a multiset,
+ * so deletions don't require measuring again.
+ * <br>
+ * Changes that don't result in model events (e.g., renderer or font
+ * changes) require a call of {@link #invalidate()}.
+ * <br>
+ * Must be used from the event dispatch thread only.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ * @see JTableHelper#setColumnWidthCacheEnabled(JTable, boolean)
+ */
+public class TableColumnWidthCache
+  implements TableModelListener, PropertyChangeListener {
+
+  /** the padding added to the preferred width of the cell renderer. */
+  public final static int PADDING = 10;
+
+  /** the table. */
+  protected JTable m_Table;
+
+  /** the model that is being listened to. */
+  protected TableModel m_Model;
+
+  /** the modification counter, incremented with every model event. */
+  protected long m_ModificationCount;
+
+  /** whether the initial rows have been selected. */
+  protected boolean m_Initialized;
+
+  /** the measured model rows and their widths per model column (-1 if not measured yet). */
+  protected TreeMap<Integer,int[]> m_Rows;
+
+  /** the multiset of widths per model column (width - count). */
+  protected Map<Integer,TreeMap<Integer,Integer>> m_Widths;
+
+  /** the modification counter per model column when it was last brought up-to-date. */
+  protected Map<Integer,Long> m_ColumnModificationCount;
+
+  /**
+   * Initializes the cache for the table.
+   *
+   * @param table	the table to cache the widths for
+   */
+  public TableColumnWidthCache(JTable table) {
+    m_Table                   = table;
+    m_Rows                    = new TreeMap<>();
+    m_Widths                  = new HashMap<>();
+    m_ColumnModificationCount = new HashMap<>();
+    m_Model                   = table.getModel();
+    m_Model.addTableModelListener(this);
+    m_Table.addPropertyChangeListener("model", this);
+  }
+
+  /**
+   * Returns the table.
+   *
+   * @return		the table
+   */
+  public JTable getTable() {
+    return m_Table;
+  }
+
+  /**
+   * Returns the modification counter, which gets incremented with every
+   * model event.
+   *
+   * @return		the counter
+   */
+  public long getModificationCount() {
+    return m_ModificationCount;
+  }
+
+  /**
+   * Removes all measured widths.
+   */
+  public void invalidate() {
+    m_Rows.clear();
+    m_Widths.clear();
+    m_ColumnModificationCount.clear();
+    m_Initialized = false;
+    m_ModificationCount++;
+  }
+
+  /**
+   * Stops listening to the table and its model.
+   */
+  public void detach() {
+    m_Model.removeTableModelListener(this);
+    m_Table.removePropertyChangeListener("model", this);
+    invalidate();
+  }
+
+  /**
+   * Gets called when the model of the table gets replaced.
+   *
+   * @param evt		the event
+   */
+  @Override
+  public void propertyChange(PropertyChangeEvent evt) {
+    m_Model.removeTableModelListener(this);
+    m_Model = m_Table.getModel();
+    m_Model.addTableModelListener(this);
+    invalidate();
+  }
+
+  /**
+   * Returns the model rows to measure initially.
+   *
+   * @param rowCount	the number of rows in the model
+   * @return		the rows
+   */
+  protected List<Integer> initialRows(int rowCount) {
+    return sampleRows(0, rowCount - 1);
+  }
+
+  /**
+   * Samples at most {@link JTableHelper#MAX_ROWS} evenly spaced rows from
+   * the range, starting from the bottom.
+   *
+   * @param first	the first row (incl)
+   * @param last	the last row (incl)
+   * @return		the rows
+   */
+  protected List<Integer> sampleRows(int first, int last) {
+    List<Integer>	result;
+    int			dec;
+    int			row;
+
+    result = new ArrayList<>();
+    if (last < first)
+      return result;
+    dec = (int) Math.ceil((double) (last - first + 1) / (double) JTableHelper.MAX_ROWS);
+    for (row = last; row >= first; row -= dec)
+      result.add(row);
+
+    return result;
+  }
+
+  /**
+   * Adds the row for measuring, unless already present.
+   *
+   * @param row		the model row
+   */
+  protected void addRow(int row) {
+    int[]	widths;
+
+    if (m_Rows.containsKey(row))
+      return;
+    widths = new int[m_Model.getColumnCount()];
+    Arrays.fill(widths, -1);
+    m_Rows.put(row, widths);
+  }
+
+  /**
+   * Removes the width from the multiset of the column.
+   *
+   * @param col		the model column
+   * @param width	the width to remove, ignored if -1
+   */
+  protected void removeWidth(int col, int width) {
+    TreeMap<Integer,Integer>	counts;
+    Integer			count;
+
+    if (width == -1)
+      return;
+    counts = m_Widths.get(col);
+    if (counts == null)
+      return;
+    count = counts.get(width);
+    if (count == null)
+      return;
+    if (count == 1)
+      counts.remove(width);
+    else
+      counts.put(width, count - 1);
+  }
+
+  /**
+   * Adds the width to the multiset of the column.
+   *
+   * @param col		the model column
+   * @param width	the width to add
+   */
+  protected void addWidth(int col, int width) {
+    TreeMap<Integer,Integer>	counts;
+
+    counts = m_Widths.get(col);
+    if (counts == null) {
+      counts = new TreeMap<>();
+      m_Widths.put(col, counts);
+    }
+    counts.merge(width, 1, Integer::sum);
+  }
+
+  /**
+   * Shifts the measured rows starting at the specified row.
+   *
+   * @param from	the first model row to shift
+   * @param delta	the number of rows to shift by
+   */
+  protected void shiftRows(int from, int delta) {
+    NavigableMap<Integer,int[]>	tail;
+    TreeMap<Integer,int[]>	shifted;
+
+    tail    = m_Rows.tailMap(from, true);
+    shifted = new TreeMap<>();
+    for (Map.Entry<Integer,int[]> entry: tail.entrySet())
+      shifted.put(entry.getKey() + delta, entry.getValue());
+    tail.clear();
+    m_Rows.putAll(shifted);
+  }
+
+  /**
+   * Updates the measured rows according to the event.
+   *
+   * @param e		the event
+   */
+  @Override
+  public void tableChanged(TableModelEvent e) {
+    NavigableMap<Integer,int[]>	range;
+    int				first;
+    int				last;
+    int				col;
+    int				i;
+
+    m_ModificationCount++;
+
+    // structure or all data changed?
+    if ((e.getFirstRow() == TableModelEvent.HEADER_ROW) || (e.getLastRow() == Integer.MAX_VALUE)) {
+      invalidate();
+      return;
+    }
+    if (!m_Initialized)
+      return;
+
+    first = e.getFirstRow();
+    last  = e.getLastRow();
+    switch (e.getType()) {
+      case TableModelEvent.INSERT:
+	shiftRows(first, last - first + 1);
+	for (int row: sampleRows(first, last))
+	  addRow(row);
+	break;
+
+      case TableModelEvent.DELETE:
+	range = m_Rows.subMap(first, true, last, true);
+	for (int[] widths: range.values()) {
+	  for (i = 0; i < widths.length; i++)
+	    removeWidth(i, widths[i]);
+	}
+	range.clear();
+	shiftRows(last + 1, -(last - first + 1));
+	break;
+
+      case TableModelEvent.UPDATE:
+	col = e.getColumn();
+	for (int[] widths: m_Rows.subMap(first, true, last, true).values()) {
+	  for (i = 0; i < widths.length; i++) {
+	    if ((col == TableModelEvent.ALL_COLUMNS) || (col == i)) {
+	      removeWidth(i, widths[i]);
+	      widths[i] = -1;
+	    }
+	  }
+	}
+	for (int row: sampleRows(first, last))
+	  addRow(row);
+	break;
+    }
+  }
+
+  /**
+   * Measures the width of the cell.
+   *
+   * @param row		the model row
+   * @param col		the view column
+   * @return		the width, -1 if the row is not visible
+   */
+  protected int measure(int row, int col) {
+    int		viewRow;
+    Component	c;
+
+    viewRow = m_Table.convertRowIndexToView(row);
+    if (viewRow == -1)
+      return -1;
+    c = m_Table.prepareRenderer(m_Table.getCellRenderer(viewRow, col), viewRow, col);
+    return c.getPreferredSize().width + PADDING;
+  }
+
+  /**
+   * Returns the maximum width of the cells of the column, measuring only
+   * the rows that were added/updated since the last call.
+   *
+   * @param col		the view column
+   * @return		the width, -1 if no cells measured
+   */
+  public int getCellWidth(int col) {
+    TreeMap<Integer,Integer>	counts;
+    int				modelCol;
+    int				width;
+
+    modelCol = m_Table.convertColumnIndexToModel(col);
+    if (!m_Initialized) {
+      for (int row: initialRows(m_Model.getRowCount()))
+	addRow(row);
+      m_Initialized = true;
+    }
+
+    if (!m_ColumnModificationCount.containsKey(modelCol) || (m_ColumnModificationCount.get(modelCol) != m_ModificationCount)) {
+      try {
+	for (Map.Entry<Integer,int[]> entry: m_Rows.entrySet()) {
+	  if ((modelCol >= entry.getValue().length) || (entry.getValue()[modelCol] != -1))
+	    continue;
+	  width = measure(entry.getKey(), col);
+	  if (width == -1)
+	    continue;
+	  entry.getValue()[modelCol] = width;
+	  addWidth(modelCol, width);
+	}
+	m_ColumnModificationCount.put(modelCol, m_ModificationCount);
+      }
+      catch (Exception e) {
+	JTableHelper.LOGGER.log(Level.SEVERE, "Failed to calculate column width!", e);
+      }
+    }
+
+    counts = m_Widths.get(modelCol);
+    if ((counts == null) || counts.isEmpty())
+      return -1;
+    else
+      return counts.lastKey();
+  }
+}
@@ -0,0 +1,499 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * TableExporter.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package nz.ac.waikato.cms.gui.core;
+
+import nz.ac.waikato.cms.core.ThreadUtils;
+
+import javax.swing.JTable;
+import javax.swing.SwingUtilities;
+import javax.swing.table.TableModel;
+import java.io.BufferedWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Exports the content of a table as CSV or TSV, streaming the rows to a
+ * writer in the background. Rows get read from the model in chunks on the
+ * EDT (converted to strings) and written by a background thread, i.e., at
+ * most one chunk is held in memory. The export can be cancelled by
+ * cancelling the returned future, which must not be waited for on the EDT.
+ * <br>
+ * Values that contain the separator, double quotes or line breaks get
+ * enclosed in double quotes, with double quotes doubled.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ * @see JTableHelper#export(JTable, Writer, char)
+ */
+public class TableExporter {
+
+  /** the separator for CSV. */
+  public final static char SEPARATOR_CSV = ',';
+
+  /** the separator for TSV. */
+  public final static char SEPARATOR_TSV = '\t';
+
+  /** the default number of rows to read at a time. */
+  public final static int DEFAULT_CHUNK_SIZE = 1000;
+
+  /** the maximum number of concurrent exports. */
+  public final static int MAX_EXPORTERS = 2;
+
+  /**
+   * Interface for classes that get notified about the progress of an
+   * export.
+   */
+  public interface ProgressListener {
+
+    /**
+     * Gets called after each chunk of rows was written (on the EDT).
+     *
+     * @param rows	the number of rows written so far
+     * @param total	the total number of rows
+     */
+    public void exportProgress(int rows, int total);
+  }
+
+  /** the executor for the exports (shared across exporters). */
+  protected static ExecutorService m_Executor;
+
+  /** the table to export. */
+  protected JTable m_Table;
+
+  /** the separator. */
+  protected char m_Separator;
+
+  /** whether to use the view order (rows and columns). */
+  protected boolean m_ViewOrder;
+
+  /** whether to export only the selected rows. */
+  protected boolean m_SelectedOnly;
+
+  /** whether to output the column names. */
+  protected boolean m_OutputHeader;
+
+  /** the number of rows to read at a time. */
+  protected int m_ChunkSize;
+
+  /** the progress listener, can be null. */
+  protected ProgressListener m_ProgressListener;
+
+  /**
+   * Initializes the exporter (CSV, view order, all rows, with header).
+   *
+   * @param table	the table to export
+   */
+  public TableExporter(JTable table) {
+    m_Table        = table;
+    m_Separator    = SEPARATOR_CSV;
+    m_ViewOrder    = true;
+    m_SelectedOnly = false;
+    m_OutputHeader = true;
+    m_ChunkSize    = DEFAULT_CHUNK_SIZE;
+  }
+
+  /**
+   * Returns the executor for the exports.
+   *
+   * @return		the executor
+   */
+  protected static synchronized ExecutorService getExecutor() {
+    if (m_Executor == null)
+      m_Executor = ThreadUtils.newExecutor("TableExporter", MAX_EXPORTERS);
+    return m_Executor;
+  }
+
+  /**
+   * Returns the table to export.
+   *
+   * @return		the table
+   */
+  public JTable getTable() {
+    return m_Table;
+  }
+
+  /**
+   * Sets the separator.
+   *
+   * @param value	the separator
+   * @see		#SEPARATOR_CSV
+   * @see		#SEPARATOR_TSV
+   */
+  public void setSeparator(char value) {
+    m_Separator = value;
+  }
+
+  /**
+   * Returns the separator.
+   *
+   * @return		the separator
+   */
+  public char getSeparator() {
+    return m_Separator;
+  }
+
+  /**
+   * Sets whether to use the order of rows and columns as displayed by the
+   * table (sorted/filtered, moved columns) or the model order.
+   *
+   * @param value	true if view order
+   */
+  public void setViewOrder(boolean value) {
+    m_ViewOrder = value;
+  }
+
+  /**
+   * Returns whether to use the order of rows and columns as displayed by
+   * the table or the model order.
+   *
+   * @return		true if view order
+   */
+  public boolean getViewOrder() {
+    return m_ViewOrder;
+  }
+
+  /**
+   * Sets whether to export only the selected rows.
+   *
+   * @param value	true if only selected rows
+   */
+  public void setSelectedOnly(boolean value) {
+    m_SelectedOnly = value;
+  }
+
+  /**
+   * Returns whether to export only the selected rows.
+   *
+   * @return		true if only selected rows
+   */
+  public boolean getSelectedOnly() {
+    return m_SelectedOnly;
+  }
+
+  /**
+   * Sets whether to output the column names.
+   *
+   * @param value	true if to output
+   */
+  public void setOutputHeader(boolean value) {
+    m_OutputHeader = value;
+  }
+
+  /**
+   * Returns whether to output the column names.
+   *
+   * @return		true if to output
+   */
+  public boolean getOutputHeader() {
+    return m_OutputHeader;
+  }
+
+  /**
+   * Sets the number of rows to read from the model at a time.
+   *
+   * @param value	the number of rows
+   */
+  public void setChunkSize(int value) {
+    if (value > 0)
+      m_ChunkSize = value;
+  }
+
+  /**
+   * Returns the number of rows to read from the model at a time.
+   *
+   * @return		the number of rows
+   */
+  public int getChunkSize() {
+    return m_ChunkSize;
+  }
+
+  /**
+   * Sets the listener to notify about the progress.
+   *
+   * @param value	the listener, null to remove
+   */
+  public void setProgressListener(ProgressListener value) {
+    m_ProgressListener = value;
+  }
+
+  /**
+   * Returns the listener to notify about the progress.
+   *
+   * @return		the listener, null if none
+   */
+  public ProgressListener getProgressListener() {
+    return m_ProgressListener;
+  }
+
+  /**
+   * Quotes the value if necessary.
+   *
+   * @param value	the value to quote
+   * @param separator	the separator in use
+   * @return		the (quoted) value
+   */
+  public static String quote(String value, char separator) {
+    StringBuilder	result;
+    int			i;
+    char		c;
+    boolean		quote;
+
+    quote = false;
+    for (i = 0; i < value.length(); i++) {
+      c = value.charAt(i);
+      if ((c == separator) || (c == '"') || (c == '\n') || (c == '\r')) {
+	quote = true;
+	break;
+      }
+    }
+    if (!quote)
+      return value;
+
+    result = new StringBuilder(value.length() + 2);
+    result.append('"');
+    for (i = 0; i < value.length(); i++) {
+      c = value.charAt(i);
+      if (c == '"')
+	result.append('"');
+      result.append(c);
+    }
+    result.append('"');
+
+    return result.toString();
+  }
+
+  /**
+   * Returns the model columns to export, in output order. Must be called
+   * from the EDT.
+   *
+   * @return		the columns
+   */
+  protected int[] getColumns() {
+    int[]	result;
+    int		i;
+
+    if (m_ViewOrder) {
+      result = new int[m_Table.getColumnCount()];
+      for (i = 0; i < result.length; i++)
+	result[i] = m_Table.convertColumnIndexToModel(i);
+    }
+    else {
+      result = new int[m_Table.getModel().getColumnCount()];
+      for (i = 0; i < result.length; i++)
+	result[i] = i;
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the model rows to export, in output order. Must be called
+   * from the EDT.
+   *
+   * @return		the rows, null for all model rows in model order
+   */
+  protected int[] getRows() {
+    int[]	result;
+    int		i;
+
+    if (m_SelectedOnly) {
+      result = m_Table.getSelectedRows();
+      for (i = 0; i < result.length; i++)
+	result[i] = m_Table.convertRowIndexToModel(result[i]);
+      if (!m_ViewOrder)
+	Arrays.sort(result);
+      return result;
+    }
+
+    if (!m_ViewOrder || (m_Table.getRowSorter() == null))
+      return null;
+
+    result = new int[m_Table.getRowCount()];
+    for (i = 0; i < result.length; i++)
+      result[i] = m_Table.convertRowIndexToModel(i);
+
+    return result;
+  }
+
+  /**
+   * Returns the (quoted) column names as line. Must be called from the EDT.
+   *
+   * @param columns	the model columns
+   * @return		the line
+   */
+  protected String readHeader(int[] columns) {
+    StringBuilder	result;
+    int			n;
+
+    result = new StringBuilder();
+    for (n = 0; n < columns.length; n++) {
+      if (n > 0)
+	result.append(m_Separator);
+      result.append(quote(m_Table.getModel().getColumnName(columns[n]), m_Separator));
+    }
+    result.append('\n');
+
+    return result.toString();
+  }
+
+  /**
+   * Reads the chunk of rows from the model as (quoted) lines. Must be
+   * called from the EDT and the rows must be valid for the current model.
+   *
+   * @param rows	the model rows, null for all model rows
+   * @param columns	the model columns
+   * @param from	the position of the first row to read
+   * @param to		the position of the last row to read (excl)
+   * @return		the lines
+   */
+  protected String readChunk(int[] rows, int[] columns, int from, int to) {
+    StringBuilder	result;
+    TableModel		model;
+    Object		value;
+    int			row;
+    int			i;
+    int			n;
+
+    result = new StringBuilder();
+    model  = m_Table.getModel();
+    for (i = from; i < to; i++) {
+      row = (rows == null) ? i : rows[i];
+      for (n = 0; n < columns.length; n++) {
+	if (n > 0)
+	  result.append(m_Separator);
+	value = model.getValueAt(row, columns[n]);
+	if (value != null)
+	  result.append(quote(value.toString(), m_Separator));
+      }
+      result.append('\n');
+    }
+
+    return result.toString();
+  }
+
+  /**
+   * Exports the table to the channel in the background. The channel gets
+   * closed at the end.
+   *
+   * @param channel	the channel to write to
+   * @param charset	the character set to use
+   * @return		the future number of rows written
+   */
+  public CompletableFuture<Integer> export(WritableByteChannel channel, Charset charset) {
+    return export(Channels.newWriter(channel, charset.newEncoder(), -1));
+  }
+
+  /**
+   * Exports the table to the writer in the background. The writer gets
+   * closed at the end. Cancelling the returned future stops the export
+   * after the current chunk.
+   * <br>
+   * The rows to export (selection, sort order, filter) are determined when
+   * the export starts, the values are read chunk by chunk. Changes to cell
+   * values during the export therefore show up in chunks that haven't been
+   * read yet. If rows get added or removed or the model gets replaced, the
+   * export fails with an {@link IllegalStateException}.
+   *
+   * @param writer	the writer to write to
+   * @return		the future number of rows written
+   */
+  public CompletableFuture<Integer> export(final Writer writer) {
+    final CompletableFuture<Integer>	result;
+
+    result = new CompletableFuture<>();
+    getExecutor().submit(() -> {
+      try (BufferedWriter bwriter = (writer instanceof BufferedWriter) ? (BufferedWriter) writer : new BufferedWriter(writer)) {
+	result.complete(doExport(bwriter, result));
+      }
+      catch (Throwable t) {
+	result.completeExceptionally(t);
+      }
+    });
+
+    return result;
+  }
+
+  /**
+   * Performs the actual export (in the background).
+   *
+   * @param writer	the writer to write to
+   * @param future	the future of the export, to check for cancellation
+   * @return		the number of rows written
+   * @throws Exception	if export fails, the model's rows change or the export got cancelled
+   */
+  protected int doExport(BufferedWriter writer, CompletableFuture<Integer> future) throws Exception {
+    final TableModel[]	model;
+    final int[]		modelRows;
+    final int[][]	rows;
+    final int[][]	columns;
+    final String[]	chunk;
+    final int[]		total;
+    int			from;
+    int			to;
+    int			written;
+
+    model     = new TableModel[1];
+    modelRows = new int[1];
+    rows      = new int[1][];
+    columns   = new int[1][];
+    chunk     = new String[1];
+    total     = new int[1];
+    SwingUtilities.invokeAndWait(() -> {
+      model[0]     = m_Table.getModel();
+      modelRows[0] = model[0].getRowCount();
+      rows[0]      = getRows();
+      columns[0]   = getColumns();
+      total[0]     = (rows[0] == null) ? modelRows[0] : rows[0].length;
+      if (m_OutputHeader)
+	chunk[0] = readHeader(columns[0]);
+    });
+    if (chunk[0] != null)
+      writer.write(chunk[0]);
+
+    written = 0;
+    for (from = 0; from < total[0]; from += m_ChunkSize) {
+      if (future.isCancelled())
+	throw new CancellationException("Export cancelled after " + written + " rows");
+      to = Math.min(total[0], from + m_ChunkSize);
+      final int fFrom = from;
+      final int fTo   = to;
+      chunk[0] = null;
+      SwingUtilities.invokeAndWait(() -> {
+	if ((m_Table.getModel() == model[0]) && (model[0].getRowCount() == modelRows[0]))
+	  chunk[0] = readChunk(rows[0], columns[0], fFrom, fTo);
+      });
+      if (chunk[0] == null)
+	throw new IllegalStateException("Table rows changed during export, aborted after " + written + " rows");
+      writer.write(chunk[0]);
+      written = to;
+      if (m_ProgressListener != null)
+	SwingUtilities.invokeLater(() -> m_ProgressListener.exportProgress(fTo, total[0]));
+    }
+    writer.flush();
+
+    return written;
+  }
+}